@@ -0,0 +1,69 @@
+package com.vorono4ka.editor;
+
+import com.vorono4ka.editor.layout.panels.StatusBar;
+import com.vorono4ka.swf.SupercellSWF;
+import com.vorono4ka.swf.exceptions.UnableToFindObjectException;
+import com.vorono4ka.swf.originalObjects.MovieClipOriginal;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Editor#collectObjectTableRows(SupercellSWF, StatusBar)}, which fills the objects table
+ * after a file is opened. Pass the file with {@code -p file=<path to .sc>}. <br>
+ * <br>
+ * {@code index} looks movie clips up through the id index, {@code scan} searches the movie clip array
+ * on every lookup, as the editor did before the index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ObjectTableBenchmark {
+    @Param("")
+    public String file;
+
+    @Param({"index", "scan"})
+    public String lookup;
+
+    private SupercellSWF swf;
+    private StatusBar statusBar;
+
+    @Setup
+    public void setup() throws Exception {
+        if (this.file.isEmpty()) {
+            throw new IllegalStateException("Pass a .sc file with -p file=<path>");
+        }
+
+        this.swf = this.lookup.equals("scan") ? new ScanningSupercellSWF() : new SupercellSWF();
+        this.swf.setLazyTextureDecoding(true);
+        if (!this.swf.load(this.file, Path.of(this.file).getFileName().toString())) {
+            throw new IllegalStateException("Cannot load " + this.file);
+        }
+
+        this.statusBar = new StatusBar();
+    }
+
+    @Benchmark
+    public List<Object[]> collectObjectTableRows() {
+        return Editor.collectObjectTableRows(this.swf, this.statusBar);
+    }
+
+    private static final class ScanningSupercellSWF extends SupercellSWF {
+        @Override
+        public MovieClipOriginal getOriginalMovieClip(int id, String name) throws UnableToFindObjectException {
+            for (int i = 0; i < this.getMovieClipCount(); i++) {
+                MovieClipOriginal movieClip = this.getMovieClip(i);
+                if (movieClip.getId() == id) {
+                    return movieClip;
+                }
+            }
+
+            throw new UnableToFindObjectException("Unable to find some MovieClip id from " + this.getFilename());
+        }
+    }
+}
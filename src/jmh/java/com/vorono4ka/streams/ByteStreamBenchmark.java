@@ -0,0 +1,97 @@
+package com.vorono4ka.streams;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bulk array reads of {@link ByteStream} with the byte-by-byte reads they replaced. <br>
+ * <br>
+ * The byte-by-byte methods compose every value from {@link ByteStream#readUnsignedChar()} calls,
+ * as the stream did before it was backed by a little-endian buffer.
+ * The data has the size of a 1024x1024 RGBA8 texture.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteStreamBenchmark {
+    private static final int PIXEL_COUNT = 1024 * 1024;
+
+    @Param({"heap", "direct"})
+    public String bufferType;
+
+    private ByteBuffer data;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[PIXEL_COUNT * Integer.BYTES];
+        new Random(0).nextBytes(bytes);
+
+        if (this.bufferType.equals("direct")) {
+            this.data = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN).put(bytes).flip();
+        } else {
+            this.data = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    @Benchmark
+    public int[] readIntArrayBulk() {
+        return new ByteStream(this.data).readIntArray(PIXEL_COUNT);
+    }
+
+    @Benchmark
+    public int[] readIntArrayByteByByte() {
+        ByteStream stream = new ByteStream(this.data);
+
+        int[] array = new int[PIXEL_COUNT];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = stream.readUnsignedChar() |
+                stream.readUnsignedChar() << 8 |
+                stream.readUnsignedChar() << 16 |
+                stream.readUnsignedChar() << 24;
+        }
+
+        return array;
+    }
+
+    @Benchmark
+    public short[] readShortArrayBulk() {
+        return new ByteStream(this.data).readShortArray(PIXEL_COUNT * 2);
+    }
+
+    @Benchmark
+    public short[] readShortArrayByteByByte() {
+        ByteStream stream = new ByteStream(this.data);
+
+        short[] array = new short[PIXEL_COUNT * 2];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (short) (stream.readUnsignedChar() | stream.readUnsignedChar() << 8);
+        }
+
+        return array;
+    }
+
+    @Benchmark
+    public void readPixelSlice(Blackhole blackhole) {
+        blackhole.consume(new ByteStream(this.data).readSlice(PIXEL_COUNT * Integer.BYTES));
+    }
+
+    @Benchmark
+    public byte[] readByteArrayByteByByte() {
+        ByteStream stream = new ByteStream(this.data);
+
+        byte[] array = new byte[PIXEL_COUNT * Integer.BYTES];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = (byte) stream.readUnsignedChar();
+        }
+
+        return array;
+    }
+}
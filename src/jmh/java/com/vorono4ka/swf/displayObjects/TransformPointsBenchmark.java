@@ -0,0 +1,84 @@
+package com.vorono4ka.swf.displayObjects;
+
+import com.vorono4ka.math.Point;
+import com.vorono4ka.swf.Matrix2x3;
+import com.vorono4ka.swf.originalObjects.ShapeDrawBitmapCommand;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transforms the vertices of 4096 quad commands with one matrix. <br>
+ * <br>
+ * {@code packed} is {@link ShapeDrawBitmapCommand#transformPoints}, which reads one interleaved
+ * {@code float[]} per command. {@code points} repeats the previous renderer loop, which read a {@link Point}
+ * object per vertex and called {@link Matrix2x3#applyX} and {@link Matrix2x3#applyY}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformPointsBenchmark {
+    private static final int COMMAND_COUNT = 4096;
+    private static final int VERTEX_COUNT = 4;
+
+    private final Matrix2x3 matrix = new Matrix2x3(0.8f, 0.3f, -0.3f, 0.8f, 120f, -45f);
+
+    private float[][] vertices;
+    private Point[][] shapePoints;
+    private float[] destination;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+
+        this.vertices = new float[COMMAND_COUNT][];
+        this.shapePoints = new Point[COMMAND_COUNT][];
+        for (int i = 0; i < COMMAND_COUNT; i++) {
+            float[] commandVertices = new float[VERTEX_COUNT * ShapeDrawBitmapCommand.VERTEX_STRIDE];
+            Point[] commandPoints = new Point[VERTEX_COUNT];
+            for (int j = 0; j < VERTEX_COUNT; j++) {
+                float x = random.nextInt(4096) - 2048;
+                float y = random.nextInt(4096) - 2048;
+
+                commandVertices[j * ShapeDrawBitmapCommand.VERTEX_STRIDE] = x;
+                commandVertices[j * ShapeDrawBitmapCommand.VERTEX_STRIDE + 1] = y;
+                commandPoints[j] = new Point(x, y);
+            }
+
+            this.vertices[i] = commandVertices;
+            this.shapePoints[i] = commandPoints;
+        }
+
+        this.destination = new float[VERTEX_COUNT * 2];
+    }
+
+    @Benchmark
+    public float packed() {
+        float sum = 0;
+        for (float[] commandVertices : this.vertices) {
+            ShapeDrawBitmapCommand.transformPoints(commandVertices, VERTEX_COUNT, this.matrix, this.destination);
+            sum += this.destination[0];
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public float points() {
+        float sum = 0;
+        for (Point[] commandPoints : this.shapePoints) {
+            for (int i = 0; i < commandPoints.length; i++) {
+                this.destination[i * 2] = this.matrix.applyX(commandPoints[i].getX(), commandPoints[i].getY());
+                this.destination[i * 2 + 1] = this.matrix.applyY(commandPoints[i].getX(), commandPoints[i].getY());
+            }
+
+            sum += this.destination[0];
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,95 @@
+package com.vorono4ka.swf.originalObjects;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Untiles a 2048x2048 RGBA8 interlaced texture (TEXTURE_5/6/7 layout). <br>
+ * <br>
+ * {@code boxed} repeats the previous decoder, which boxed every tile into an {@code Integer[]}
+ * and passed every pixel through a {@code BiConsumer}. {@code sequential} runs the bulk copies
+ * of {@link SWFTexture#untile} on one thread, {@code parallel} is the decoder itself,
+ * which untiles tile rows on the common pool, so its gain depends on the core count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UntileBenchmark {
+    private static final int SIZE = 2048;
+    private static final int PIXEL_BYTES = Integer.BYTES;
+
+    private ByteBuffer tiles;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[SIZE * SIZE * PIXEL_BYTES];
+        new Random(0).nextBytes(bytes);
+
+        this.tiles = ByteBuffer.allocateDirect(bytes.length).order(ByteOrder.LITTLE_ENDIAN).put(bytes).flip();
+    }
+
+    @Benchmark
+    public ByteBuffer parallel() {
+        return SWFTexture.untile(this.tiles, SIZE, SIZE, PIXEL_BYTES);
+    }
+
+    @Benchmark
+    public ByteBuffer sequential() {
+        ByteBuffer pixels = ByteBuffer.allocateDirect(SIZE * SIZE * PIXEL_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        int tileRowCount = (SIZE + SWFTexture.TILE_SIZE - 1) / SWFTexture.TILE_SIZE;
+        for (int tileY = 0; tileY < tileRowCount; tileY++) {
+            SWFTexture.untileRow(this.tiles, pixels, SIZE, SIZE, PIXEL_BYTES, tileY);
+        }
+
+        return pixels;
+    }
+
+    @Benchmark
+    public IntBuffer boxed() {
+        IntBuffer pixels = ByteBuffer.allocateDirect(SIZE * SIZE * PIXEL_BYTES).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        IntBuffer tiles = this.tiles.duplicate().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+        untileBoxed(tiles, SIZE, SIZE, pixels::put);
+
+        return pixels;
+    }
+
+    private static void untileBoxed(IntBuffer tiles, int width, int height, BiConsumer<Integer, Integer> pixelConsumer) {
+        int xTileCount = width / SWFTexture.TILE_SIZE;
+        int yTileCount = height / SWFTexture.TILE_SIZE;
+
+        for (int tileY = 0; tileY < yTileCount + 1; tileY++) {
+            for (int tileX = 0; tileX < xTileCount + 1; tileX++) {
+                int tileWidth = Math.min(width - (tileX * SWFTexture.TILE_SIZE), SWFTexture.TILE_SIZE);
+                int tileHeight = Math.min(height - (tileY * SWFTexture.TILE_SIZE), SWFTexture.TILE_SIZE);
+
+                int[] tile = new int[tileWidth * tileHeight];
+                tiles.get(tile);
+
+                Integer[] tilePixels = new Integer[tile.length];
+                for (int i = 0; i < tile.length; i++) {
+                    tilePixels[i] = tile[i];
+                }
+
+                for (int y = 0; y < tileHeight; y++) {
+                    int pixelY = (tileY * SWFTexture.TILE_SIZE) + y;
+                    for (int x = 0; x < tileWidth; x++) {
+                        int pixelX = (tileX * SWFTexture.TILE_SIZE) + x;
+
+                        pixelConsumer.accept(pixelY * width + pixelX, tilePixels[y * tileWidth + x]);
+                    }
+                }
+            }
+        }
+    }
+}
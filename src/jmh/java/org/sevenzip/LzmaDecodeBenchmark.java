@@ -0,0 +1,74 @@
+package org.sevenzip;
+
+import com.vorono4ka.streams.ByteBufferOutputStream;
+import org.openjdk.jmh.annotations.*;
+import org.sevenzip.compression.LZMA.Decoder;
+import org.sevenzip.compression.LZMA.Encoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes 4 MB of {@link LzmaBench} data through both inputs of the decoder. <br>
+ * <br>
+ * {@code stream} is the previous path, which read a {@link ByteArrayInputStream} and collected the output
+ * in a {@link ByteArrayOutputStream}. {@code buffer} reads the compressed data with
+ * {@link Decoder#code(ByteBuffer, java.io.OutputStream, long)} into a preallocated direct buffer,
+ * as {@code Decompressor} does now.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LzmaDecodeBenchmark {
+	private static final int DATA_SIZE = 4 * 1024 * 1024;
+
+	private final Decoder decoder = new Decoder();
+
+	private byte[] compressed;
+	private ByteBuffer compressedBuffer;
+	private ByteBuffer decompressed;
+
+	@Setup
+	public void setup() throws IOException {
+		LzmaBench.CBenchRandomGenerator generator = new LzmaBench.CBenchRandomGenerator();
+		generator.Set(DATA_SIZE);
+		generator.Generate();
+
+		Encoder encoder = new Encoder();
+		ByteArrayOutputStream properties = new ByteArrayOutputStream();
+		encoder.writeCoderProperties(properties);
+		if (!this.decoder.setDecoderProperties(properties.toByteArray()))
+			throw new IOException("Incorrect decoder properties");
+
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		encoder.code(new ByteArrayInputStream(generator.Buffer), output, null);
+
+		this.compressed = output.toByteArray();
+		this.compressedBuffer = ByteBuffer.allocateDirect(this.compressed.length).put(this.compressed).flip();
+		this.decompressed = ByteBuffer.allocateDirect(DATA_SIZE);
+	}
+
+	@Benchmark
+	public byte[] stream() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		if (!this.decoder.code(new ByteArrayInputStream(this.compressed), output, DATA_SIZE))
+			throw new IOException("Cannot decode the data");
+
+		return output.toByteArray();
+	}
+
+	@Benchmark
+	public ByteBuffer buffer() throws IOException {
+		this.decompressed.clear();
+		if (!this.decoder.code(this.compressedBuffer.duplicate(), new ByteBufferOutputStream(this.decompressed), DATA_SIZE))
+			throw new IOException("Cannot decode the data");
+
+		return this.decompressed;
+	}
+}
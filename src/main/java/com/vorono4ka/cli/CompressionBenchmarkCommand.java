@@ -0,0 +1,195 @@
+package com.vorono4ka.cli;
+
+import com.vorono4ka.compression.CompressionSettings;
+import com.vorono4ka.compression.Compressor;
+import com.vorono4ka.compression.Decompressor;
+import com.vorono4ka.compression.LzmaProfile;
+import com.vorono4ka.compression.exceptions.UnknownFileMagicException;
+import com.vorono4ka.compression.exceptions.UnknownFileVersionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sevenzip.compression.LZMA.Encoder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Compresses a corpus of .sc files with every {@link LzmaProfile} and prints the compression ratio
+ * against the compression and decompression time of each profile. <br>
+ * <br>
+ * Files are processed one by one, so the times aren't affected by other files. The first file is also
+ * compressed once with every profile before measuring, so the times don't include JIT compilation.
+ * Every compressed file is decompressed and compared with the original data.
+ */
+public class CompressionBenchmarkCommand {
+    public static final String NAME = "compression-benchmark";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompressionBenchmarkCommand.class);
+
+    private static final String USAGE = "Usage: compression-benchmark [--threads <count>] [--profile <fast|balanced|max>]... (<file.sc> | <directory>)...";
+    private static final String EXTENSION = ".sc";
+
+    private final List<Path> inputs = new ArrayList<>();
+    private final Set<LzmaProfile> profiles = EnumSet.noneOf(LzmaProfile.class);
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+
+    private final Map<LzmaProfile, Result> results = new EnumMap<>(LzmaProfile.class);
+    private long originalSize;
+    private long decompressedSize;
+
+    public static int run(String[] args) {
+        CompressionBenchmarkCommand command = new CompressionBenchmarkCommand();
+        if (!command.parseArguments(args)) {
+            System.err.println(USAGE);
+            return 1;
+        }
+
+        return command.execute();
+    }
+
+    private boolean parseArguments(String[] args) {
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> this.threadCount = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--profile" -> this.profiles.add(LzmaProfile.valueOf(args[++i].toUpperCase(Locale.ROOT)));
+                    default -> this.inputs.add(Path.of(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException exception) {
+            return false;
+        }
+
+        if (this.profiles.isEmpty()) {
+            this.profiles.addAll(EnumSet.allOf(LzmaProfile.class));
+        }
+
+        return !this.inputs.isEmpty();
+    }
+
+    private int execute() {
+        List<Path> files;
+        try {
+            files = this.collectFiles();
+        } catch (IOException exception) {
+            LOGGER.error("Cannot list the files", exception);
+            return 1;
+        }
+
+        for (LzmaProfile profile : this.profiles) {
+            this.results.put(profile, new Result());
+        }
+
+        if (!files.isEmpty()) {
+            this.warmUp(files.get(0));
+        }
+
+        int failedFiles = 0;
+        for (Path file : files) {
+            try {
+                this.benchmarkFile(file);
+            } catch (IOException | UnknownFileMagicException | UnknownFileVersionException exception) {
+                LOGGER.error("An error occurred while benchmarking the file: {}", file, exception);
+                failedFiles++;
+            }
+        }
+
+        this.printResults();
+        System.err.printf("Benchmarked %d files (%d failed)%n", files.size() - failedFiles, failedFiles);
+
+        return failedFiles == 0 ? 0 : 1;
+    }
+
+    private List<Path> collectFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+
+        for (Path input : this.inputs) {
+            if (!Files.isDirectory(input)) {
+                files.add(input);
+                continue;
+            }
+
+            try (Stream<Path> paths = Files.walk(input)) {
+                paths.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .sorted()
+                    .forEach(files::add);
+            }
+        }
+
+        return files;
+    }
+
+    private void warmUp(Path file) {
+        try {
+            byte[] data = Decompressor.decompress(Files.readAllBytes(file));
+            for (LzmaProfile profile : this.profiles) {
+                Decompressor.decompress(Compressor.compress(data, CompressionSettings.lzma(profile, this.threadCount)));
+            }
+        } catch (IOException | UnknownFileMagicException | UnknownFileVersionException exception) {
+            // The file is reported when it is benchmarked
+        }
+    }
+
+    private void benchmarkFile(Path file) throws IOException, UnknownFileMagicException, UnknownFileVersionException {
+        byte[] original = Files.readAllBytes(file);
+        byte[] data = Decompressor.decompress(original);
+
+        for (LzmaProfile profile : this.profiles) {
+            long startTime = System.nanoTime();
+            byte[] compressed = Compressor.compress(data, CompressionSettings.lzma(profile, this.threadCount));
+            long compressTime = System.nanoTime() - startTime;
+
+            startTime = System.nanoTime();
+            byte[] decompressed = Decompressor.decompress(compressed);
+            long decompressTime = System.nanoTime() - startTime;
+
+            if (!Arrays.equals(data, decompressed)) {
+                throw new IOException("Decompressed data differs from the original with the " + profile + " profile");
+            }
+
+            Result result = this.results.get(profile);
+            result.compressedSize += compressed.length;
+            result.compressTime += compressTime;
+            result.decompressTime += decompressTime;
+        }
+
+        this.originalSize += original.length;
+        this.decompressedSize += data.length;
+    }
+
+    private void printResults() {
+        System.out.printf("%-10s %10s %6s %9s %12s %7s %10s %10s%n", "profile", "dictionary", "finder", "fastBytes", "size", "ratio", "compress", "decompress");
+        System.out.printf("%-10s %10s %6s %9s %12d %6.2f%% %10s %10s%n", "original", "-", "-", "-", this.originalSize, this.getRatio(this.originalSize), "-", "-");
+
+        for (Map.Entry<LzmaProfile, Result> entry : this.results.entrySet()) {
+            LzmaProfile profile = entry.getKey();
+            Result result = entry.getValue();
+
+            System.out.printf("%-10s %7d KB %6s %9d %12d %6.2f%% %8.2f s %8.2f s%n",
+                profile.name().toLowerCase(Locale.ROOT),
+                profile.getDictionarySize() / 1024,
+                profile.getMatchFinder() == Encoder.EMatchFinderTypeBT2 ? "BT2" : "BT4",
+                profile.getNumFastBytes(),
+                result.compressedSize,
+                this.getRatio(result.compressedSize),
+                result.compressTime / 1_000_000_000f,
+                result.decompressTime / 1_000_000_000f
+            );
+        }
+    }
+
+    private float getRatio(long compressedSize) {
+        if (this.decompressedSize == 0) return 0;
+        return compressedSize * 100f / this.decompressedSize;
+    }
+
+    private static final class Result {
+        private long compressedSize;
+        private long compressTime;
+        private long decompressTime;
+    }
+}
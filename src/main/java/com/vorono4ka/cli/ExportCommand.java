@@ -0,0 +1,283 @@
+package com.vorono4ka.cli;
+
+import com.jogamp.opengl.*;
+import com.vorono4ka.editor.renderer.Stage;
+import com.vorono4ka.exporter.ImageExporter;
+import com.vorono4ka.math.Rect;
+import com.vorono4ka.swf.Export;
+import com.vorono4ka.swf.GLImage;
+import com.vorono4ka.swf.SupercellSWF;
+import com.vorono4ka.swf.displayObjects.MovieClip;
+import com.vorono4ka.swf.exceptions.LoadingFaultException;
+import com.vorono4ka.swf.exceptions.TextureFileNotFound;
+import com.vorono4ka.swf.exceptions.UnableToFindObjectException;
+import com.vorono4ka.swf.exceptions.UnsupportedCustomPropertyException;
+import com.vorono4ka.swf.originalObjects.MovieClipOriginal;
+import com.vorono4ka.swf.originalObjects.SWFTexture;
+import com.vorono4ka.utilities.ImageData;
+import com.vorono4ka.utilities.ImageUtils;
+import com.vorono4ka.utilities.MovieClipHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless export of MovieClips into PNG frames. <br>
+ * <br>
+ * Files are loaded and their MovieClips are built on a worker pool, frames are rendered
+ * on a single offscreen GL context (the {@link Stage} is a singleton bound to one context)
+ * and PNG encoding is handed back to the worker pool.
+ */
+public class ExportCommand {
+    public static final String NAME = "export";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportCommand.class);
+
+    private static final String USAGE = "Usage: export (--all | --name <export name>...) [--threads <count>] [--size <pixels>] [--output <directory>] [--cache] <file.sc>...";
+    private static final int DEFAULT_FRAMEBUFFER_SIZE = 1024;
+
+    private final List<String> files = new ArrayList<>();
+    private final Set<String> exportNames = new HashSet<>();
+    private boolean exportAll;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private int framebufferSize = DEFAULT_FRAMEBUFFER_SIZE;
+    private Path outputDirectory = Path.of("screenshots");
+    private boolean isFileCacheEnabled;
+
+    private final AtomicInteger exportedObjects = new AtomicInteger();
+    private final AtomicInteger exportedFrames = new AtomicInteger();
+    private final AtomicInteger failedFiles = new AtomicInteger();
+
+    public static int run(String[] args) {
+        ExportCommand command = new ExportCommand();
+        if (!command.parseArguments(args)) {
+            System.err.println(USAGE);
+            return 1;
+        }
+
+        return command.execute();
+    }
+
+    private boolean parseArguments(String[] args) {
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--all" -> this.exportAll = true;
+                    case "--name" -> this.exportNames.add(args[++i]);
+                    case "--threads" -> this.threadCount = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--size" -> this.framebufferSize = Integer.parseInt(args[++i]);
+                    case "--output" -> this.outputDirectory = Path.of(args[++i]);
+                    case "--cache" -> this.isFileCacheEnabled = true;
+                    default -> this.files.add(args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException exception) {
+            return false;
+        }
+
+        return !this.files.isEmpty() && (this.exportAll || !this.exportNames.isEmpty());
+    }
+
+    private int execute() {
+        GLProfile profile = GLProfile.get(GLProfile.GL3);
+        GLCapabilities capabilities = new GLCapabilities(profile);
+        capabilities.setOnscreen(false);
+
+        GLOffscreenAutoDrawable drawable = GLDrawableFactory.getFactory(profile).createOffscreenAutoDrawable(null, capabilities, null, this.framebufferSize, this.framebufferSize);
+        GLContext context = drawable.getContext();
+        context.makeCurrent();
+
+        Stage stage = Stage.getInstance();
+        stage.init(context.getGL().getGL3(), 0, 0, this.framebufferSize, this.framebufferSize);
+        stage.runTasks();
+
+        ImageExporter imageExporter = new ImageExporter(stage);
+
+        ExecutorService loaderPool = Executors.newFixedThreadPool(this.threadCount);
+        ExecutorService encoderPool = Executors.newFixedThreadPool(this.threadCount);
+        // Bounds the amount of frames waiting for encoding, each of them holds a full pixel array
+        Semaphore pendingFrames = new Semaphore(this.threadCount * 4);
+
+        long startTime = System.nanoTime();
+
+        try {
+            CompletionService<LoadedFile> loadedFiles = new ExecutorCompletionService<>(loaderPool);
+
+            int submittedFiles = 0;
+            int renderedFiles = 0;
+            // Keeping only a few loaded files in memory at once
+            for (; submittedFiles < Math.min(this.threadCount, this.files.size()); submittedFiles++) {
+                String path = this.files.get(submittedFiles);
+                loadedFiles.submit(() -> this.loadFile(path));
+            }
+
+            while (renderedFiles < submittedFiles) {
+                LoadedFile loadedFile = loadedFiles.take().get();
+                renderedFiles++;
+
+                if (submittedFiles < this.files.size()) {
+                    String path = this.files.get(submittedFiles++);
+                    loadedFiles.submit(() -> this.loadFile(path));
+                }
+
+                if (loadedFile == null) continue;
+
+                this.renderFile(stage, imageExporter, loadedFile, encoderPool, pendingFrames);
+            }
+
+            encoderPool.shutdown();
+            //noinspection ResultOfMethodCallIgnored
+            encoderPool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException | ExecutionException exception) {
+            LOGGER.error("Export was interrupted", exception);
+            return 1;
+        } finally {
+            loaderPool.shutdownNow();
+            encoderPool.shutdownNow();
+
+            stage.unbindRender();
+            context.release();
+            drawable.destroy();
+        }
+
+        float seconds = (System.nanoTime() - startTime) / 1_000_000_000f;
+        int objects = this.exportedObjects.get();
+        int frames = this.exportedFrames.get();
+
+        System.out.printf("Exported %d objects (%d frames) from %d files in %.2fs%n", objects, frames, this.files.size() - this.failedFiles.get(), seconds);
+        System.out.printf("Throughput: %.2f objects/s, %.2f frames/s%n", objects / seconds, frames / seconds);
+
+        return this.failedFiles.get() == 0 ? 0 : 1;
+    }
+
+    private LoadedFile loadFile(String path) {
+        SupercellSWF swf = new SupercellSWF();
+        // A batch rarely loads a file twice, so the cache would only write a copy of every file
+        swf.setFileCacheEnabled(this.isFileCacheEnabled);
+
+        try {
+            if (!swf.load(path, Path.of(path).getFileName().toString())) {
+                this.failedFiles.incrementAndGet();
+                return null;
+            }
+        } catch (LoadingFaultException | UnableToFindObjectException | UnsupportedCustomPropertyException |
+                 TextureFileNotFound | RuntimeException exception) {
+            // Damaged files fail with unchecked exceptions too, they mustn't stop the other files
+            LOGGER.error("An error occurred while loading the file: {}", path, exception);
+            this.failedFiles.incrementAndGet();
+            return null;
+        }
+
+        // Waiting for texture decoding here, so the render thread doesn't have to
+        for (int i = 0; i < swf.getTextureCount(); i++) {
+            SWFTexture texture = swf.getTexture(i);
+            CompletableFuture.allOf(texture.getPixelsAsync(), texture.getKhronosTextureAsync()).exceptionally((throwable) -> null).join();
+        }
+
+        List<ExportedClip> movieClips = new ArrayList<>();
+        for (Export export : swf.getExports()) {
+            if (!this.exportAll && !this.exportNames.contains(export.name())) continue;
+
+            try {
+                MovieClipOriginal original = swf.getOriginalMovieClip(export.id() & 0xFFFF, export.name());
+                movieClips.add(new ExportedClip(export.name(), MovieClip.createMovieClip(original, swf)));
+            } catch (UnableToFindObjectException | RuntimeException exception) {
+                LOGGER.error("Cannot build an export {} from {}", export.name(), path, exception);
+            }
+        }
+
+        return new LoadedFile(swf, movieClips);
+    }
+
+    private void renderFile(Stage stage, ImageExporter imageExporter, LoadedFile loadedFile, ExecutorService encoderPool, Semaphore pendingFrames) throws InterruptedException {
+        SupercellSWF swf = loadedFile.swf();
+
+        for (int i = 0; i < swf.getTextureCount(); i++) {
+            SWFTexture texture = swf.getTexture(i);
+            try {
+                // Decoding should be finished by the loader, so the upload gets scheduled immediately
+                CompletableFuture.allOf(texture.getPixelsAsync(), texture.getKhronosTextureAsync()).join();
+            } catch (CompletionException exception) {
+                LOGGER.error("An error occurred while decoding the texture {} from {}", i, swf.getFilename(), exception);
+            }
+
+            stage.createGLImage(texture);
+        }
+
+        stage.runTasks();
+
+        String filename = swf.getFilename();
+        int extensionIndex = filename.lastIndexOf('.');
+        Path fileDirectory = this.outputDirectory.resolve(extensionIndex != -1 ? filename.substring(0, extensionIndex) : filename);
+
+        for (ExportedClip exportedClip : loadedFile.movieClips()) {
+            MovieClip movieClip = exportedClip.movieClip();
+
+            Rect bounds = stage.calculateBoundsForAllFrames(movieClip);
+            if (bounds.getWidth() <= 0 || bounds.getHeight() <= 0) continue;
+
+            stage.getCamera().zoomToFit(bounds);
+            stage.updatePMVMatrix();
+
+            stage.removeAllChildren();
+            stage.addChild(movieClip);
+
+            Path clipDirectory = fileDirectory.resolve(exportedClip.name());
+
+            List<InterruptedException> interruptions = new ArrayList<>(1);
+            MovieClipHelper.doForAllFrames(movieClip, (frameIndex) -> {
+                movieClip.gotoAndStopFrameIndex(frameIndex);
+                stage.render(0);
+
+                ImageData imageData = imageExporter.getCroppedFramebufferData(bounds, false);
+
+                try {
+                    pendingFrames.acquire();
+                } catch (InterruptedException exception) {
+                    interruptions.add(exception);
+                    return;
+                }
+
+                encoderPool.execute(() -> {
+                    try {
+                        BufferedImage image = ImageUtils.createBufferedImageFromPixels(imageData.width(), imageData.height(), imageData.pixels(), false);
+                        ImageUtils.saveImage(clipDirectory.resolve(frameIndex + ".png"), image);
+                        this.exportedFrames.incrementAndGet();
+                    } finally {
+                        pendingFrames.release();
+                    }
+                });
+            });
+
+            if (!interruptions.isEmpty()) {
+                throw interruptions.get(0);
+            }
+
+            this.exportedObjects.incrementAndGet();
+        }
+
+        for (int i = 0; i < swf.getTextureCount(); i++) {
+            GLImage image = stage.removeImage(swf.getTexture(i).getIndex());
+            if (image != null) {
+                image.dispose();
+            }
+        }
+
+        stage.clearBatches();
+        stage.removeAllChildren();
+    }
+
+    private record LoadedFile(SupercellSWF swf, List<ExportedClip> movieClips) {
+    }
+
+    private record ExportedClip(String name, MovieClip movieClip) {
+    }
+}
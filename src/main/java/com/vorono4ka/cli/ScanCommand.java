@@ -0,0 +1,192 @@
+package com.vorono4ka.cli;
+
+import com.vorono4ka.swf.Export;
+import com.vorono4ka.swf.FileSummary;
+import com.vorono4ka.swf.SupercellSWF;
+import com.vorono4ka.swf.exceptions.LoadingFaultException;
+import com.vorono4ka.swf.exceptions.TextureFileNotFound;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Headless metadata scan of .sc files for building asset indices. <br>
+ * <br>
+ * Only headers, exports and texture headers are read (see {@link SupercellSWF#scan(String)}),
+ * files are scanned on a worker pool. Directories are walked recursively, texture files are skipped.
+ * The summary is written as tab-separated lines:
+ * <pre>
+ * file    path shapes movieClips textFields matrices colorTransforms textures exports externalTexture
+ * texture path index tag type width height
+ * export  path id name
+ * </pre>
+ */
+public class ScanCommand {
+    public static final String NAME = "scan";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScanCommand.class);
+
+    private static final String USAGE = "Usage: scan [--threads <count>] [--output <file>] [--cache] (<file.sc> | <directory>)...";
+    private static final String EXTENSION = ".sc";
+
+    private final List<Path> inputs = new ArrayList<>();
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private Path outputFile;
+    private boolean isFileCacheEnabled;
+
+    public static int run(String[] args) {
+        ScanCommand command = new ScanCommand();
+        if (!command.parseArguments(args)) {
+            System.err.println(USAGE);
+            return 1;
+        }
+
+        return command.execute();
+    }
+
+    private boolean parseArguments(String[] args) {
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--threads" -> this.threadCount = Math.max(1, Integer.parseInt(args[++i]));
+                    case "--output" -> this.outputFile = Path.of(args[++i]);
+                    case "--cache" -> this.isFileCacheEnabled = true;
+                    default -> this.inputs.add(Path.of(args[i]));
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException exception) {
+            return false;
+        }
+
+        return !this.inputs.isEmpty();
+    }
+
+    private int execute() {
+        List<Path> files;
+        try {
+            files = this.collectFiles();
+        } catch (IOException exception) {
+            LOGGER.error("Cannot list the files", exception);
+            return 1;
+        }
+
+        long startTime = System.nanoTime();
+
+        ExecutorService pool = Executors.newFixedThreadPool(this.threadCount);
+        List<Future<FileSummary>> summaries = new ArrayList<>(files.size());
+        for (Path file : files) {
+            summaries.add(pool.submit(() -> this.scanFile(file)));
+        }
+
+        int failedFiles = 0;
+
+        try (PrintStream output = this.openOutput()) {
+            // Printed in the order of the files, so the output doesn't depend on the thread count
+            for (Future<FileSummary> future : summaries) {
+                FileSummary summary = future.get();
+                if (summary == null) {
+                    failedFiles++;
+                    continue;
+                }
+
+                printSummary(output, summary);
+            }
+
+            if (output.checkError()) {
+                throw new IOException("Cannot write the summary");
+            }
+        } catch (IOException exception) {
+            LOGGER.error("Cannot write the summary: {}", this.outputFile, exception);
+            return 1;
+        } catch (InterruptedException | ExecutionException exception) {
+            LOGGER.error("Scan was interrupted", exception);
+            return 1;
+        } finally {
+            pool.shutdownNow();
+        }
+
+        float seconds = (System.nanoTime() - startTime) / 1_000_000_000f;
+        System.err.printf("Scanned %d files (%d failed) in %.2fs%n", files.size() - failedFiles, failedFiles, seconds);
+
+        return failedFiles == 0 ? 0 : 1;
+    }
+
+    private List<Path> collectFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+
+        for (Path input : this.inputs) {
+            if (!Files.isDirectory(input)) {
+                files.add(input);
+                continue;
+            }
+
+            try (Stream<Path> paths = Files.walk(input)) {
+                paths.filter(Files::isRegularFile)
+                    .filter(ScanCommand::isObjectFile)
+                    .sorted()
+                    .forEach(files::add);
+            }
+        }
+
+        return files;
+    }
+
+    private static boolean isObjectFile(Path path) {
+        String filename = path.getFileName().toString();
+        return filename.endsWith(EXTENSION) && !filename.endsWith(SupercellSWF.TEXTURE_EXTENSION);
+    }
+
+    private FileSummary scanFile(Path file) {
+        try {
+            return SupercellSWF.scan(file.toString(), this.isFileCacheEnabled);
+        } catch (LoadingFaultException | TextureFileNotFound | RuntimeException exception) {
+            LOGGER.error("An error occurred while scanning the file: {}", file, exception);
+            return null;
+        }
+    }
+
+    private PrintStream openOutput() throws IOException {
+        if (this.outputFile == null) {
+            // Keeps System.out open after the summary is written
+            return new PrintStream(new FilterOutputStream(System.out) {
+                @Override
+                public void close() throws IOException {
+                    this.flush();
+                }
+            }, false, StandardCharsets.UTF_8);
+        }
+
+        return new PrintStream(new BufferedOutputStream(Files.newOutputStream(this.outputFile)), false, StandardCharsets.UTF_8);
+    }
+
+    private static void printSummary(PrintStream output, FileSummary summary) {
+        output.printf("file\t%s\t%d\t%d\t%d\t%d\t%d\t%d\t%d\t%b%n",
+            summary.path(),
+            summary.shapeCount(),
+            summary.movieClipCount(),
+            summary.textFieldCount(),
+            summary.matrixCount(),
+            summary.colorTransformCount(),
+            summary.textures().size(),
+            summary.exports().size(),
+            summary.useExternalTexture()
+        );
+
+        for (int i = 0; i < summary.textures().size(); i++) {
+            FileSummary.TextureHeader texture = summary.textures().get(i);
+            output.printf("texture\t%s\t%d\t%s\t%d\t%d\t%d%n", summary.path(), i, texture.tag(), texture.type(), texture.width(), texture.height());
+        }
+
+        for (Export export : summary.exports()) {
+            output.printf("export\t%s\t%d\t%s%n", summary.path(), export.id() & 0xFFFF, export.name());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.vorono4ka.compression;
+
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import org.sevenzip.compression.LZMA.Decoder;
+import org.sevenzip.compression.LZMA.Encoder;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Codec state reused between files: MD5 digest, LZMA encoder and decoder and zstd contexts. <br>
+ * <br>
+ * The LZMA encoder allocates several megabytes of match finder tables, so contexts are pooled
+ * instead of being created for every file. A context must only be used by one thread at once,
+ * closing it returns it to the pool:
+ * <pre>{@code
+ * try (CodecContext context = CodecContext.acquire()) {
+ *     byte[] hash = context.getMd5().digest(data);
+ * }
+ * }</pre>
+ */
+public final class CodecContext implements AutoCloseable {
+    private static final int MAX_POOLED_CONTEXT_COUNT = Runtime.getRuntime().availableProcessors();
+
+    private static final ConcurrentLinkedDeque<CodecContext> POOL = new ConcurrentLinkedDeque<>();
+    private static final AtomicInteger POOLED_CONTEXT_COUNT = new AtomicInteger();
+
+    private final MessageDigest md5;
+
+    private Encoder lzmaEncoder;
+    private Decoder lzmaDecoder;
+    private ZstdCompressCtx zstdCompressContext;
+    private ZstdDecompressCtx zstdDecompressContext;
+
+    private boolean isReleased;
+
+    private CodecContext() {
+        try {
+            this.md5 = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return context from the pool or a new one, if the pool is empty
+     */
+    public static CodecContext acquire() {
+        CodecContext context = POOL.pollFirst();
+        if (context == null) {
+            return new CodecContext();
+        }
+
+        POOLED_CONTEXT_COUNT.decrementAndGet();
+        context.isReleased = false;
+        return context;
+    }
+
+    /**
+     * Returns the context to the pool. The context and objects taken from it must not be used after closing.
+     */
+    @Override
+    public void close() {
+        if (this.isReleased) return;
+        this.isReleased = true;
+
+        if (POOLED_CONTEXT_COUNT.incrementAndGet() > MAX_POOLED_CONTEXT_COUNT) {
+            POOLED_CONTEXT_COUNT.decrementAndGet();
+            this.dispose();
+            return;
+        }
+
+        POOL.addFirst(this);
+    }
+
+    public MessageDigest getMd5() {
+        this.md5.reset();
+        return this.md5;
+    }
+
+    /**
+     * @return encoder keeping the match finder of the previous file, all encoder parameters should be set before use
+     */
+    public Encoder getLzmaEncoder() {
+        if (this.lzmaEncoder == null) {
+            this.lzmaEncoder = new Encoder();
+        }
+
+        return this.lzmaEncoder;
+    }
+
+    /**
+     * @return decoder keeping the window of the previous file, properties should be set before use
+     */
+    public Decoder getLzmaDecoder() {
+        if (this.lzmaDecoder == null) {
+            this.lzmaDecoder = new Decoder();
+        }
+
+        return this.lzmaDecoder;
+    }
+
+    /**
+     * @return context with default parameters and no dictionary
+     */
+    public ZstdCompressCtx getZstdCompressContext() {
+        if (this.zstdCompressContext == null) {
+            this.zstdCompressContext = new ZstdCompressCtx();
+        } else {
+            this.zstdCompressContext.reset();
+        }
+
+        return this.zstdCompressContext;
+    }
+
+    /**
+     * @return context with default parameters and no dictionary
+     */
+    public ZstdDecompressCtx getZstdDecompressContext() {
+        if (this.zstdDecompressContext == null) {
+            this.zstdDecompressContext = new ZstdDecompressCtx();
+        } else {
+            this.zstdDecompressContext.reset();
+        }
+
+        return this.zstdDecompressContext;
+    }
+
+    private void dispose() {
+        if (this.zstdCompressContext != null) {
+            this.zstdCompressContext.close();
+        }
+
+        if (this.zstdDecompressContext != null) {
+            this.zstdDecompressContext.close();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.vorono4ka.compression;
+
+/**
+ * Codec and its parameters used for saving files. <br>
+ * <br>
+ * LZMA is what the game ships with, zstd is much faster and is meant for development builds.
+ *
+ * @param level       LZMA level from 1 to 9 selecting the {@link LzmaProfile} or zstd level
+ * @param threadCount zstd workers. LZMA is single-threaded with 1 and runs its match finder
+ *                    on one extra thread with any larger count, so it uses at most 2 threads
+ * @param dictionary  zstd dictionary, may be null. Files compressed with a dictionary
+ *                    can only be decompressed with the same dictionary
+ */
+public record CompressionSettings(Codec codec, int level, int threadCount, byte[] dictionary) {
+    public static final int DEFAULT_LZMA_LEVEL = 5;
+    public static final int DEFAULT_ZSTD_LEVEL = 3;
+
+    public static final CompressionSettings RELEASE = lzma(LzmaProfile.BALANCED, Runtime.getRuntime().availableProcessors());
+    public static final CompressionSettings DEVELOPMENT = new CompressionSettings(Codec.ZSTD, DEFAULT_ZSTD_LEVEL, Runtime.getRuntime().availableProcessors(), null);
+
+    public static CompressionSettings lzma(LzmaProfile profile, int threadCount) {
+        return new CompressionSettings(Codec.LZMA, profile.getLevel(), threadCount, null);
+    }
+
+    public enum Codec {
+        LZMA(4),
+        ZSTD(3);
+
+        private final int fileVersion;
+
+        Codec(int fileVersion) {
+            this.fileVersion = fileVersion;
+        }
+
+        public int getFileVersion() {
+            return fileVersion;
+        }
+    }
+}
@@ -1,36 +1,101 @@
 package com.vorono4ka.compression;
 
-import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
 import com.vorono4ka.compression.exceptions.UnknownFileVersionException;
 import org.sevenzip.compression.LZMA.Encoder;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataOutputStream;
-import java.io.IOException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 
 public class Compressor {
-    private static final byte[] LZMA_PROPERTIES = new byte[]{
-        0x5d, 0x00, 0x00, 0x04, 0x00
-    };
-
-    private static final MessageDigest MD5;
     private static final int SC_MAGIC = 0x5343;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+    public static byte[] compress(byte[] data, int compressionVersion) throws IOException, UnknownFileVersionException {
+        return compress(data, compressionVersion, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threadCount zstd workers. LZMA is single-threaded with 1 and uses one extra match finder
+     *                    thread with any larger count
+     */
+    public static byte[] compress(byte[] data, int compressionVersion, int threadCount) throws IOException, UnknownFileVersionException {
+        CompressionSettings.Codec codec = switch (compressionVersion) {
+            case 1, 4 -> CompressionSettings.Codec.LZMA;
+            case 2, 3 -> CompressionSettings.Codec.ZSTD;
+            default ->
+                throw new UnknownFileVersionException("Unknown file version: " + compressionVersion);
+        };
 
-    static {
+        int level = codec == CompressionSettings.Codec.LZMA ? CompressionSettings.DEFAULT_LZMA_LEVEL : CompressionSettings.DEFAULT_ZSTD_LEVEL;
+        return compress(data, compressionVersion, new CompressionSettings(codec, level, threadCount, null));
+    }
+
+    public static byte[] compress(byte[] data, CompressionSettings settings) throws IOException {
         try {
-            MD5 = MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+            return compress(data, settings.codec().getFileVersion(), settings);
+        } catch (UnknownFileVersionException exception) {
+            throw new IllegalStateException(exception);
         }
     }
 
-    public static byte[] compress(byte[] data, int compressionVersion) throws IOException, UnknownFileVersionException {
+    /**
+     * Writes the file header into the channel and returns a stream which compresses the data written into it
+     * straight into the channel, so neither the data nor the compressed file has to be kept in memory. <br>
+     * <br>
+     * The header contains the size and the hash of the data, so they have to be known in advance.
+     * Exactly {@code size} bytes must be written, closing the stream finishes the file. The channel is not closed.
+     *
+     * @param hash MD5 hash of the data
+     */
+    public static OutputStream compress(WritableByteChannel channel, int size, byte[] hash, CompressionSettings settings) throws IOException {
+        OutputStream output = new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE);
+
+        try {
+            writeHeader(new DataOutputStream(output), settings.codec().getFileVersion(), hash);
+        } catch (UnknownFileVersionException exception) {
+            throw new IllegalStateException(exception);
+        }
+
+        CodecContext context = CodecContext.acquire();
+        try {
+            return switch (settings.codec()) {
+                case LZMA -> new LzmaCompressingStream(output, size, context, settings);
+                case ZSTD -> new ZstdCompressingStream(output, size, context, settings);
+            };
+        } catch (IOException | RuntimeException exception) {
+            context.close();
+            throw exception;
+        }
+    }
+
+    private static byte[] compress(byte[] data, int compressionVersion, CompressionSettings settings) throws IOException, UnknownFileVersionException {
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
         DataOutputStream dos = new DataOutputStream(byteArrayOutputStream);
 
+        try (CodecContext context = CodecContext.acquire()) {
+            byte[] hash = context.getMd5().digest(data);
+
+            switch (writeHeader(dos, compressionVersion, hash)) {
+                case 1 ->
+                    dos.write(compressLzma(context, data, settings.level(), settings.threadCount()));
+                case 2, 3 ->
+                    dos.write(compressZstd(context, data, settings.level(), settings.threadCount(), settings.dictionary()));
+            }
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * @return compression version of the payload
+     */
+    private static int writeHeader(DataOutputStream dos, int compressionVersion, byte[] hash) throws IOException, UnknownFileVersionException {
+        if (compressionVersion < 1 || compressionVersion > 4) {
+            throw new UnknownFileVersionException("Unknown file version: " + compressionVersion);
+        }
+
         dos.writeShort(SC_MAGIC);
 
         dos.writeInt(compressionVersion);
@@ -39,35 +104,60 @@ public class Compressor {
             dos.writeInt(compressionVersion);
         }
 
-        byte[] hash = MD5.digest(data);
-
         dos.writeInt(hash.length);
         dos.write(hash);
 
-        switch (compressionVersion) {
-            case 1 -> {
-                dos.write(LZMA_PROPERTIES);
-                for (int i = 0; i < 4; i++) {
-                    dos.writeByte((data.length >> (8 * i)) & 0xFF);
-                }
-
-                dos.write(compressLzma(data));
-            }
-            case 2, 3 -> dos.write(Zstd.compress(data));
-            default ->
-                throw new UnknownFileVersionException("Unknown file version: " + compressionVersion);
-        }
-
-        return byteArrayOutputStream.toByteArray();
+        return compressionVersion;
     }
 
-    private static byte[] compressLzma(byte[] data) throws IOException {
+    /**
+     * @param level from 1 to 9, see {@link LzmaProfile#fromLevel(int)}
+     * @return encoder properties, decompressed size and LZMA stream
+     */
+    private static byte[] compressLzma(CodecContext context, byte[] data, int level, int threadCount) throws IOException {
         ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(data);
         ByteArrayOutputStream outputArray = new ByteArrayOutputStream();
 
-        Encoder encoder = new Encoder();
+        Encoder encoder = createLzmaEncoder(context, level, threadCount);
+        writeLzmaHeader(outputArray, encoder, data.length);
         encoder.code(byteArrayInputStream, outputArray, null);
 
         return outputArray.toByteArray();
     }
+
+    private static byte[] compressZstd(CodecContext context, byte[] data, int level, int threadCount, byte[] dictionary) {
+        return createZstdContext(context, level, threadCount, dictionary).compress(data);
+    }
+
+    static Encoder createLzmaEncoder(CodecContext context, int level, int threadCount) {
+        Encoder encoder = context.getLzmaEncoder();
+        encoder.setNumThreads(threadCount);
+        LzmaProfile.fromLevel(level).apply(encoder);
+
+        return encoder;
+    }
+
+    static void writeLzmaHeader(OutputStream output, Encoder encoder, int size) throws IOException {
+        // Written by the encoder, so the dictionary size in the header is the one used for compression
+        encoder.writeCoderProperties(output);
+        for (int i = 0; i < 4; i++) {
+            output.write((size >> (8 * i)) & 0xFF);
+        }
+    }
+
+    static ZstdCompressCtx createZstdContext(CodecContext context, int level, int threadCount, byte[] dictionary) {
+        ZstdCompressCtx compressContext = context.getZstdCompressContext();
+        compressContext.setLevel(level);
+        // The frame content size is required by the decompressor
+        compressContext.setContentSize(true);
+        if (threadCount > 1) {
+            compressContext.setWorkers(threadCount);
+        }
+
+        if (dictionary != null) {
+            compressContext.loadDict(dictionary);
+        }
+
+        return compressContext;
+    }
 }
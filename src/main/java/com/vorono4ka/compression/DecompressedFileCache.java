@@ -0,0 +1,295 @@
+package com.vorono4ka.compression;
+
+import com.vorono4ka.utilities.BufferUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * On-disk cache of decompressed .sc payloads, keyed by the hash from the file header. <br>
+ * <br>
+ * Entries are stored as raw files after a small header, so they can be memory-mapped on hit.
+ * The header keeps the data size and checksum, entries which don't match them are removed on lookup.
+ * The least recently used entries are removed when the cache grows over its size limit. <br>
+ * <br>
+ * The editor uses the cache by default, it is disabled by the {@code sc-editor.cache=false} system property.
+ * The commands use it only when asked to, one-shot batches rarely load a file twice.
+ */
+public class DecompressedFileCache {
+    public static final Path DEFAULT_DIRECTORY = Path.of(System.getProperty("java.io.tmpdir"), "sc-editor-cache");
+    public static final long DEFAULT_MAX_SIZE = 1024L * 1024 * 1024;
+    public static final String ENABLED_PROPERTY = "sc-editor.cache";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DecompressedFileCache.class);
+
+    private static final String ENTRY_EXTENSION = ".bin";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+
+    // "SCDC", data size and CRC32C of the data
+    private static final int ENTRY_MAGIC = 0x53434443;
+    private static final int ENTRY_HEADER_SIZE = 12;
+
+    // Each pending write keeps the whole decompressed file alive
+    private static final int MAX_PENDING_WRITES = 2;
+
+    // Entries are written in the background, so loading doesn't wait for the disk.
+    // Data which comes faster than the disk takes it is not cached
+    private static final ExecutorService WRITER = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PENDING_WRITES), runnable -> {
+        Thread thread = new Thread(runnable, "SC cache writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static DecompressedFileCache INSTANCE;
+
+    private final Path directory;
+    private final long maxSize;
+
+    // Access-ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, Long> entrySizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalSize;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public DecompressedFileCache(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+
+        this.loadEntries();
+    }
+
+    public static synchronized DecompressedFileCache getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new DecompressedFileCache(DEFAULT_DIRECTORY, DEFAULT_MAX_SIZE);
+        }
+
+        return INSTANCE;
+    }
+
+    /**
+     * @return false, if the cache is disabled with the {@value #ENABLED_PROPERTY} system property
+     */
+    public static boolean isEnabledByDefault() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * @param hash           hash from the file header
+     * @param compressedSize   size of the compressed payload, distinguishes files with the same hash
+     * @param decompressedSize size stored in the compressed payload or -1, if it is unknown
+     * @return mapped decompressed data or null, if there is no such entry or the entry is damaged
+     */
+    public ByteBuffer get(byte[] hash, int compressedSize, long decompressedSize) {
+        String key = createKey(hash, compressedSize);
+        Path entryPath = this.directory.resolve(key + ENTRY_EXTENSION);
+
+        synchronized (this) {
+            if (this.entrySizes.get(key) == null) {
+                this.missCount.incrementAndGet();
+                return null;
+            }
+        }
+
+        try {
+            ByteBuffer data = readEntry(BufferUtils.mapFile(entryPath), decompressedSize);
+            if (data != null) {
+                // Keeps the order between application runs
+                Files.setLastModifiedTime(entryPath, FileTime.fromMillis(System.currentTimeMillis()));
+
+                this.hitCount.incrementAndGet();
+                return data;
+            }
+
+            LOGGER.warn("Removing damaged cache entry {}", entryPath);
+        } catch (IOException exception) {
+            LOGGER.warn("Cannot read cache entry {}", entryPath, exception);
+        }
+
+        synchronized (this) {
+            this.removeEntry(key);
+        }
+
+        this.missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Stores decompressed data on a background thread. The data buffer position is not changed,
+     * the data must not be modified afterwards. <br>
+     * <br>
+     * The data is dropped if the writer is still busy with previous entries.
+     */
+    public void put(byte[] hash, int compressedSize, ByteBuffer data) {
+        if (data.remaining() + ENTRY_HEADER_SIZE > this.maxSize) return;
+
+        String key = createKey(hash, compressedSize);
+        ByteBuffer source = data.duplicate();
+        try {
+            WRITER.execute(() -> this.write(key, source));
+        } catch (RejectedExecutionException exception) {
+            LOGGER.debug("Cache writer is busy, entry {} is not stored", key);
+        }
+    }
+
+    private void write(String key, ByteBuffer data) {
+        Path entryPath = this.directory.resolve(key + ENTRY_EXTENSION);
+        Path temporaryPath = this.directory.resolve(key + TEMPORARY_EXTENSION);
+
+        long size = ENTRY_HEADER_SIZE + data.remaining();
+
+        try {
+            Files.createDirectories(this.directory);
+
+            CRC32C checksum = new CRC32C();
+            checksum.update(data.duplicate());
+
+            ByteBuffer header = ByteBuffer.allocate(ENTRY_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(ENTRY_MAGIC).putInt(data.remaining()).putInt((int) checksum.getValue()).flip();
+
+            try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer[] sources = {header, data};
+                while (data.hasRemaining() || header.hasRemaining()) {
+                    channel.write(sources);
+                }
+            }
+
+            // Other loaders never see partially written entries
+            Files.move(temporaryPath, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            LOGGER.warn("Cannot write cache entry {}", entryPath, exception);
+            return;
+        }
+
+        synchronized (this) {
+            Long previousSize = this.entrySizes.put(key, size);
+            if (previousSize != null) {
+                this.totalSize -= previousSize;
+            }
+
+            this.totalSize += size;
+            this.evict();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public synchronized long getSize() {
+        return totalSize;
+    }
+
+    /**
+     * @return data of the entry or null, if the size or the checksum doesn't match
+     */
+    private static ByteBuffer readEntry(ByteBuffer entry, long decompressedSize) {
+        if (entry.capacity() < ENTRY_HEADER_SIZE) return null;
+
+        entry.order(ByteOrder.LITTLE_ENDIAN);
+        int size = entry.getInt(4);
+        if (entry.getInt(0) != ENTRY_MAGIC || size != entry.capacity() - ENTRY_HEADER_SIZE) return null;
+        if (decompressedSize != -1 && size != decompressedSize) return null;
+
+        ByteBuffer data = entry.slice(ENTRY_HEADER_SIZE, size);
+
+        CRC32C checksum = new CRC32C();
+        checksum.update(data.duplicate());
+        if ((int) checksum.getValue() != entry.getInt(8)) return null;
+
+        return data;
+    }
+
+    private void removeEntry(String key) {
+        Long size = this.entrySizes.remove(key);
+        if (size == null) return;
+
+        this.totalSize -= size;
+
+        try {
+            Files.deleteIfExists(this.directory.resolve(key + ENTRY_EXTENSION));
+        } catch (IOException exception) {
+            // The file may still be mapped, it is replaced when the data is stored again
+            LOGGER.warn("Cannot delete cache entry {}", key, exception);
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = this.entrySizes.entrySet().iterator();
+        while (this.totalSize > this.maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+
+            try {
+                Files.deleteIfExists(this.directory.resolve(entry.getKey() + ENTRY_EXTENSION));
+            } catch (IOException exception) {
+                // The file may still be mapped, it will be evicted next time
+                LOGGER.warn("Cannot delete cache entry {}", entry.getKey(), exception);
+                continue;
+            }
+
+            this.totalSize -= entry.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void loadEntries() {
+        if (!Files.isDirectory(this.directory)) return;
+
+        List<Path> entryPaths = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(this.directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String filename = path.getFileName().toString();
+                if (filename.endsWith(TEMPORARY_EXTENSION)) {
+                    // Left after an interrupted write
+                    Files.deleteIfExists(path);
+                } else if (filename.endsWith(ENTRY_EXTENSION)) {
+                    entryPaths.add(path);
+                }
+            }
+
+            Map<Path, FileTime> modifiedTimes = new HashMap<>();
+            for (Path path : entryPaths) {
+                modifiedTimes.put(path, Files.getLastModifiedTime(path));
+            }
+
+            entryPaths.sort(Comparator.comparing(modifiedTimes::get));
+
+            for (Path path : entryPaths) {
+                String filename = path.getFileName().toString();
+                long size = Files.size(path);
+
+                this.entrySizes.put(filename.substring(0, filename.length() - ENTRY_EXTENSION.length()), size);
+                this.totalSize += size;
+            }
+        } catch (IOException exception) {
+            LOGGER.warn("Cannot read cache directory {}", this.directory, exception);
+        }
+
+        synchronized (this) {
+            this.evict();
+        }
+    }
+
+    private static String createKey(byte[] hash, int compressedSize) {
+        return HexFormat.of().formatHex(hash) + "_" + compressedSize;
+    }
+}
@@ -0,0 +1,101 @@
+package com.vorono4ka.compression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decompressed data which may still be written by a background decoder. <br>
+ * <br>
+ * The buffer has the whole decompressed size from the start and is filled from the beginning,
+ * so readers only wait until the range they are going to read has been written.
+ */
+public class DecompressionProgress {
+    private final ByteBuffer data;
+    private final Object lock = new Object();
+
+    private volatile int available;
+    private volatile Throwable error;
+    private volatile boolean isCancelled;
+
+    DecompressionProgress(ByteBuffer data) {
+        this.data = data;
+    }
+
+    /**
+     * @param data decompressed data from 0 to limit
+     * @return progress of the data which is already decompressed
+     */
+    public static DecompressionProgress completed(ByteBuffer data) {
+        DecompressionProgress progress = new DecompressionProgress(data);
+        progress.available = data.limit();
+        return progress;
+    }
+
+    /**
+     * @return buffer containing decompressed data from 0 to limit, only the available part may be read
+     */
+    public ByteBuffer getData() {
+        return data;
+    }
+
+    public int getSize() {
+        return this.data.limit();
+    }
+
+    public int getAvailable() {
+        return available;
+    }
+
+    /**
+     * @return true, if the decoder has finished or failed
+     */
+    public boolean isDone() {
+        return this.available == this.data.limit() || this.error != null;
+    }
+
+    /**
+     * Blocks until the data up to the end offset is decompressed.
+     *
+     * @param end exclusive end offset, values over the size wait for the whole data
+     * @throws IOException if the decoder has failed
+     */
+    public void awaitAvailable(int end) throws IOException, InterruptedException {
+        end = Math.min(end, this.data.limit());
+        if (end <= this.available) return;
+
+        synchronized (this.lock) {
+            while (end > this.available && this.error == null) {
+                this.lock.wait();
+            }
+        }
+
+        if (end > this.available) {
+            throw new IOException("Cannot decompress the data", this.error);
+        }
+    }
+
+    /**
+     * Asks the decoder to stop, e.g. when the reader has failed and no longer needs the data.
+     */
+    public void cancel() {
+        this.isCancelled = true;
+    }
+
+    boolean isCancelled() {
+        return isCancelled;
+    }
+
+    void publish(int available) {
+        synchronized (this.lock) {
+            this.available = available;
+            this.lock.notifyAll();
+        }
+    }
+
+    void fail(Throwable error) {
+        synchronized (this.lock) {
+            this.error = error;
+            this.lock.notifyAll();
+        }
+    }
+}
@@ -1,18 +1,28 @@
 package com.vorono4ka.compression;
 
 import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDirectBufferDecompressingStreamNoFinalizer;
 import com.vorono4ka.compression.exceptions.UnknownFileMagicException;
 import com.vorono4ka.compression.exceptions.UnknownFileVersionException;
+import com.vorono4ka.streams.ByteBufferOutputStream;
+import com.vorono4ka.utilities.BufferUtils;
+import com.vorono4ka.utilities.DirectBufferPool;
 import org.sevenzip.compression.LZMA.Decoder;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public class Decompressor {
     public static final int SC_MAGIC = 0x5343;
 
+    // Amount of zstd output published at once by the pipelined decompression
+    private static final int PIPELINED_CHUNK_SIZE = 256 * 1024;
+
     public static byte[] decompress(byte[] compressedData) throws UnknownFileMagicException, UnknownFileVersionException, IOException {
         DataInputStream stream = createDataInputStreamFromBytes(compressedData);
 
@@ -32,7 +42,8 @@ public class Decompressor {
         byte[] decompressed;
 
         switch (version) {
-            case 1 -> decompressed = decompressLzma(stream);
+            case 1 ->
+                decompressed = decompressLzma(compressedData, compressedData.length - stream.available());
             case 2, 3 ->
                 decompressed = decompressZstd(compressedData, compressedData.length - stream.available());
             default ->
@@ -42,41 +53,372 @@ public class Decompressor {
         return decompressed;
     }
 
+    /**
+     * Decompresses the file data without copying the compressed payload.
+     * The compressed data may be a memory-mapped file.
+     *
+     * @param compressedData file data starting from the current buffer position
+     * @return direct buffer containing decompressed data
+     */
+    public static ByteBuffer decompress(ByteBuffer compressedData) throws UnknownFileMagicException, UnknownFileVersionException, IOException {
+        return decompress(compressedData, null);
+    }
+
+    /**
+     * Same as {@link #decompress(ByteBuffer)}, but looks up the decompressed data in the cache
+     * by the hash from the file header and stores it there after decompression.
+     *
+     * @param compressedData file data starting from the current buffer position
+     * @param cache          decompressed file cache, may be null
+     * @return direct buffer containing decompressed data
+     */
+    public static ByteBuffer decompress(ByteBuffer compressedData, DecompressedFileCache cache) throws UnknownFileMagicException, UnknownFileVersionException, IOException {
+        FileHeader header = readHeader(compressedData);
+
+        boolean isCacheable = cache != null && header.hash().length > 0;
+        if (isCacheable) {
+            ByteBuffer cachedData = cache.get(header.hash(), header.payload().remaining(), readDecompressedSize(header.version(), header.payload()));
+            if (cachedData != null) {
+                return cachedData;
+            }
+        }
+
+        ByteBuffer decompressed = decompressPayload(header);
+
+        if (isCacheable) {
+            cache.put(header.hash(), header.payload().remaining(), decompressed);
+        }
+
+        return decompressed;
+    }
+
+    /**
+     * Same as {@link #decompress(ByteBuffer, DecompressedFileCache)}, but the payload is decompressed
+     * on a background thread, so the caller can parse the beginning of the data while the rest is decoded. <br>
+     * <br>
+     * Falls back to decompressing on the calling thread if the decompressed size is not stored in the file.
+     *
+     * @param compressedData file data starting from the current buffer position
+     * @param cache          decompressed file cache, may be null
+     * @return progress of the decompression
+     */
+    public static DecompressionProgress decompressPipelined(ByteBuffer compressedData, DecompressedFileCache cache) throws UnknownFileMagicException, UnknownFileVersionException, IOException {
+        FileHeader header = readHeader(compressedData);
+
+        ByteBuffer payload = header.payload();
+        if (header.version() == 2 || header.version() == 3) {
+            payload = toDirect(payload);
+        }
+
+        long decompressedSize = readDecompressedSize(header.version(), payload);
+
+        boolean isCacheable = cache != null && header.hash().length > 0;
+        if (isCacheable) {
+            ByteBuffer cachedData = cache.get(header.hash(), header.payload().remaining(), decompressedSize);
+            if (cachedData != null) {
+                return DecompressionProgress.completed(cachedData);
+            }
+        }
+
+        if (decompressedSize == -1) {
+            ByteBuffer decompressed = decompressPayload(header);
+            if (isCacheable) {
+                cache.put(header.hash(), header.payload().remaining(), decompressed);
+            }
+
+            return DecompressionProgress.completed(decompressed);
+        }
+
+        ByteBuffer decompressed = BufferUtils.allocateDirect((int) decompressedSize);
+        DecompressionProgress progress = new DecompressionProgress(decompressed);
+
+        ByteBuffer source = payload.slice();
+        Thread thread = new Thread(() -> {
+            try {
+                if (header.version() == 1) {
+                    decompressLzma(source, progress);
+                } else {
+                    decompressZstd(source, progress);
+                }
+            } catch (Throwable throwable) {
+                progress.fail(throwable);
+                return;
+            }
+
+            if (isCacheable) {
+                cache.put(header.hash(), header.payload().remaining(), decompressed.duplicate());
+            }
+        }, "SC decompressor");
+        thread.setDaemon(true);
+        thread.start();
+
+        return progress;
+    }
+
     public static byte[] decompressZstd(byte[] compressedData, int offset) {
-        int decompressedSize = (int) Zstd.getFrameContentSize(compressedData, offset, compressedData.length - offset);
+        int compressedSize = compressedData.length - offset;
+        int decompressedSize = (int) Zstd.getFrameContentSize(compressedData, offset, compressedSize);
 
-        byte[] zstdContent;
-        if (offset > 0) {
-            zstdContent = new byte[compressedData.length - offset];
-            System.arraycopy(compressedData, offset, zstdContent, 0, zstdContent.length);
+        byte[] decompressed = new byte[decompressedSize];
+        try (CodecContext context = CodecContext.acquire()) {
+            context.getZstdDecompressContext().decompressByteArray(decompressed, 0, decompressedSize, compressedData, offset, compressedSize);
+        }
+
+        return decompressed;
+    }
+
+    /**
+     * @param compressedData zstd frame starting from the current buffer position
+     * @return direct buffer containing decompressed data
+     */
+    public static ByteBuffer decompressZstd(ByteBuffer compressedData) {
+        return decompressZstd(compressedData, (ByteBuffer) null);
+    }
+
+    /**
+     * Decompresses the zstd frame into a buffer taken from the pool.
+     * The caller should release the buffer when it is no longer used.
+     *
+     * @param compressedData zstd frame starting from the current buffer position
+     * @param bufferPool     pool of reusable destination buffers
+     * @return buffer containing decompressed data from 0 to limit
+     */
+    public static ByteBuffer decompressZstd(ByteBuffer compressedData, DirectBufferPool bufferPool) {
+        compressedData = toDirect(compressedData);
+
+        int decompressedSize = (int) Zstd.getDirectByteBufferFrameContentSize(compressedData, compressedData.position(), compressedData.remaining());
+        return decompressZstd(compressedData, bufferPool.acquire(decompressedSize));
+    }
+
+    /**
+     * Decompresses the zstd frame into the given buffer if it is direct and large enough,
+     * otherwise a new direct buffer is allocated.
+     *
+     * @param compressedData zstd frame starting from the current buffer position
+     * @param destination    reusable buffer, may be null
+     * @return buffer containing decompressed data from 0 to limit
+     */
+    public static ByteBuffer decompressZstd(ByteBuffer compressedData, ByteBuffer destination) {
+        compressedData = toDirect(compressedData);
+
+        int decompressedSize = (int) Zstd.getDirectByteBufferFrameContentSize(compressedData, compressedData.position(), compressedData.remaining());
+
+        ByteBuffer decompressed = destination;
+        if (decompressed == null || !decompressed.isDirect() || decompressed.capacity() < decompressedSize) {
+            decompressed = BufferUtils.allocateDirect(decompressedSize);
         } else {
-            zstdContent = compressedData;
+            decompressed.clear().limit(decompressedSize);
+        }
+
+        try (CodecContext context = CodecContext.acquire()) {
+            context.getZstdDecompressContext().decompressDirectByteBuffer(decompressed, 0, decompressedSize, compressedData, compressedData.position(), compressedData.remaining());
+        }
+
+        return decompressed;
+    }
+
+    private static byte[] decompressLzma(byte[] compressedData, int offset) throws IOException {
+        ByteBuffer stream = ByteBuffer.wrap(compressedData, offset, compressedData.length - offset);
+
+        try (CodecContext context = CodecContext.acquire()) {
+            Decoder decoder = createLzmaDecoder(context, stream);
+
+            int outSize = stream.order(ByteOrder.LITTLE_ENDIAN).getInt();
+            if (outSize < 0) {
+                ByteArrayOutputStream outputArray = new ByteArrayOutputStream();
+                if (!decoder.code(stream, outputArray, outSize)) {
+                    throw new IOException("Invalid LZMA data");
+                }
+
+                return outputArray.toByteArray();
+            }
+
+            byte[] decompressed = new byte[outSize];
+            if (!decoder.code(stream, new ByteBufferOutputStream(ByteBuffer.wrap(decompressed)), outSize)) {
+                throw new IOException("Invalid LZMA data");
+            }
+
+            return decompressed;
+        }
+    }
+
+    private static ByteBuffer decompressLzma(ByteBuffer stream) throws IOException {
+        try (CodecContext context = CodecContext.acquire()) {
+            Decoder decoder = createLzmaDecoder(context, stream);
+
+            int outSize = stream.order(ByteOrder.LITTLE_ENDIAN).getInt();
+            if (outSize < 0) {
+                ByteArrayOutputStream outputArray = new ByteArrayOutputStream();
+                if (!decoder.code(stream, outputArray, outSize)) {
+                    throw new IOException("Invalid LZMA data");
+                }
+
+                return BufferUtils.wrapDirect(outputArray.toByteArray());
+            }
+
+            ByteBuffer decompressed = BufferUtils.allocateDirect(outSize);
+            if (!decoder.code(stream, new ByteBufferOutputStream(decompressed), outSize)) {
+                throw new IOException("Invalid LZMA data");
+            }
+            decompressed.flip();
+
+            return decompressed;
+        }
+    }
+
+    private static void decompressLzma(ByteBuffer stream, DecompressionProgress progress) throws IOException {
+        try (CodecContext context = CodecContext.acquire()) {
+            Decoder decoder = createLzmaDecoder(context, stream);
+
+            int outSize = stream.order(ByteOrder.LITTLE_ENDIAN).getInt();
+
+            ProgressOutputStream outputStream = new ProgressOutputStream(progress);
+            if (!decoder.code(stream, outputStream, outSize)) {
+                throw new IOException("Invalid LZMA data");
+            }
+            if (outputStream.buffer.hasRemaining()) {
+                throw new IOException("LZMA stream ended before the decompressed size");
+            }
+        }
+    }
+
+    /**
+     * Reads the decoder properties from the stream and applies them to the decoder of the context.
+     */
+    private static Decoder createLzmaDecoder(CodecContext context, ByteBuffer stream) throws IOException {
+        byte[] decoderProperties = new byte[5];
+        stream.get(decoderProperties);
+
+        Decoder decoder = context.getLzmaDecoder();
+        if (!decoder.setDecoderProperties(decoderProperties)) {
+            throw new IOException("Invalid LZMA properties");
         }
 
-        return Zstd.decompress(
-            zstdContent,
-            decompressedSize
-        );
+        return decoder;
     }
 
-    private static byte[] decompressLzma(DataInputStream stream) throws IOException {
-        Decoder decoder = new Decoder();
+    private static void decompressZstd(ByteBuffer compressedData, DecompressionProgress progress) throws IOException {
+        ByteBuffer destination = progress.getData().duplicate();
 
-        byte[] decoderProperties = stream.readNBytes(5);
-        decoder.setDecoderProperties(decoderProperties);
+        try (ZstdDirectBufferDecompressingStreamNoFinalizer stream = new ZstdDirectBufferDecompressingStreamNoFinalizer(compressedData)) {
+            while (destination.position() < progress.getSize()) {
+                if (progress.isCancelled()) {
+                    throw new IOException("Decompression was cancelled");
+                }
 
-        int outSize = 0;
-        for (int i = 0; i < 4; i++) {
-            outSize |= (stream.read() & 0xFF) << (i * 8);
+                destination.limit(Math.min(destination.position() + PIPELINED_CHUNK_SIZE, progress.getSize()));
+                if (stream.read(destination) == 0 && !stream.hasRemaining()) {
+                    throw new IOException("zstd frame ended before the decompressed size");
+                }
+
+                progress.publish(destination.position());
+            }
         }
+    }
 
-        ByteArrayOutputStream outputArray = new ByteArrayOutputStream();
-        decoder.code(stream, outputArray, outSize);
+    /**
+     * @param payload compressed data after the hash
+     * @return decompressed size stored at the start of the payload or -1, if it is unknown
+     */
+    private static long readDecompressedSize(int version, ByteBuffer payload) throws UnknownFileVersionException {
+        long decompressedSize = switch (version) {
+            case 1 -> payload.order(ByteOrder.LITTLE_ENDIAN).getInt(payload.position() + 5);
+            case 2, 3 -> {
+                if (payload.isDirect()) {
+                    yield Zstd.getDirectByteBufferFrameContentSize(payload, payload.position(), payload.remaining());
+                }
+
+                yield Zstd.getFrameContentSize(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+            }
+            default ->
+                throw new UnknownFileVersionException("Unknown file version: " + version);
+        };
+
+        if (decompressedSize < 0 || decompressedSize > Integer.MAX_VALUE) {
+            return -1;
+        }
+
+        return decompressedSize;
+    }
+
+    /**
+     * zstd-jni can only read direct buffers, so heap buffers are copied.
+     */
+    private static ByteBuffer toDirect(ByteBuffer data) {
+        if (data.isDirect()) {
+            return data;
+        }
 
-        return outputArray.toByteArray();
+        ByteBuffer directData = BufferUtils.allocateDirect(data.remaining());
+        directData.put(data.duplicate());
+        directData.position(0);
+        return directData;
+    }
+
+    private static FileHeader readHeader(ByteBuffer compressedData) throws UnknownFileMagicException {
+        ByteBuffer stream = compressedData.slice().order(ByteOrder.BIG_ENDIAN);
+
+        int magic = stream.getShort();
+        if (magic != SC_MAGIC) {
+            throw new UnknownFileMagicException("Unknown file magic: " + magic);
+        }
+
+        int version = stream.getInt();
+        if (version == 4) {
+            version = stream.getInt();
+        }
+
+        int hashLength = stream.getInt();
+        byte[] hash = new byte[hashLength];
+        stream.get(hash);
+
+        return new FileHeader(version, hash, stream.slice());
+    }
+
+    private static ByteBuffer decompressPayload(FileHeader header) throws UnknownFileVersionException, IOException {
+        return switch (header.version()) {
+            case 1 -> decompressLzma(header.payload().slice());
+            case 2, 3 -> decompressZstd(header.payload().slice());
+            default ->
+                throw new UnknownFileVersionException("Unknown file version: " + header.version());
+        };
     }
 
     private static DataInputStream createDataInputStreamFromBytes(byte[] compressedData) {
         return new DataInputStream(new ByteArrayInputStream(compressedData));
     }
+
+    /**
+     * @param payload compressed data after the hash
+     */
+    private record FileHeader(int version, byte[] hash, ByteBuffer payload) {
+    }
+
+    /**
+     * Publishes the decoded size after every write of the decoder.
+     */
+    private static final class ProgressOutputStream extends OutputStream {
+        private final DecompressionProgress progress;
+        private final ByteBuffer buffer;
+
+        private ProgressOutputStream(DecompressionProgress progress) {
+            this.progress = progress;
+            this.buffer = progress.getData().duplicate();
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            this.write(new byte[]{(byte) value}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (this.progress.isCancelled()) {
+                throw new IOException("Decompression was cancelled");
+            }
+
+            this.buffer.put(bytes, offset, length);
+            this.progress.publish(this.buffer.position());
+        }
+    }
 }
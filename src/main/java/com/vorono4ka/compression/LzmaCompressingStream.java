@@ -0,0 +1,106 @@
+package com.vorono4ka.compression;
+
+import org.sevenzip.compression.LZMA.Encoder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+/**
+ * Compresses the written data with LZMA on a separate thread. <br>
+ * <br>
+ * The encoder reads its input from a stream, so the data is passed to it through a pipe.
+ * Only the pipe and the encoder window are kept in memory. The match finder thread used with
+ * more than one thread keeps a larger window, which holds the data it has read ahead of the encoder.
+ */
+final class LzmaCompressingStream extends OutputStream {
+    private static final int PIPE_SIZE = 1024 * 1024;
+
+    private final OutputStream output;
+    private final int size;
+    private final CodecContext context;
+
+    private final PipedOutputStream pipe;
+    private final Thread thread;
+
+    private volatile Throwable error;
+    private long writtenSize;
+    private boolean isClosed;
+
+    LzmaCompressingStream(OutputStream output, int size, CodecContext context, CompressionSettings settings) throws IOException {
+        this.output = output;
+        this.size = size;
+        this.context = context;
+
+        Encoder encoder = Compressor.createLzmaEncoder(context, settings.level(), settings.threadCount());
+        Compressor.writeLzmaHeader(output, encoder, size);
+
+        PipedInputStream input = new PipedInputStream(PIPE_SIZE);
+        this.pipe = new PipedOutputStream(input);
+
+        this.thread = new Thread(() -> {
+            try (input) {
+                encoder.code(input, output, null);
+            } catch (Throwable throwable) {
+                this.error = throwable;
+            }
+        }, "LZMA encoder");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        this.write(new byte[]{(byte) value}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        try {
+            this.pipe.write(bytes, offset, length);
+        } catch (IOException exception) {
+            // The pipe is closed when the encoder fails
+            this.throwIfFailed();
+            throw exception;
+        }
+
+        this.writtenSize += length;
+    }
+
+    /**
+     * Waits for the encoder to compress all written data and flushes it into the output.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.isClosed) return;
+        this.isClosed = true;
+
+        try {
+            this.pipe.close();
+            this.thread.join();
+            this.throwIfFailed();
+
+            if (this.writtenSize != this.size) {
+                throw new IOException("Written " + this.writtenSize + " bytes instead of " + this.size);
+            }
+
+            this.output.flush();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the encoder", exception);
+        } finally {
+            // The encoder has to stop before the context can be used by another thread
+            if (!this.thread.isAlive()) {
+                this.context.close();
+            }
+        }
+    }
+
+    private void throwIfFailed() throws IOException {
+        Throwable error = this.error;
+        if (error != null) {
+            throw new IOException("Cannot compress the data", error);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.vorono4ka.compression;
+
+import org.sevenzip.compression.LZMA.Encoder;
+
+/**
+ * Named LZMA encoder parameters. <br>
+ * <br>
+ * The game files use a 256 KB dictionary. A larger dictionary finds more distant matches,
+ * but the game has to allocate it to decompress the file. <br>
+ * <br>
+ * All profiles keep the LZMA defaults lc3, lp0 and pb2 on purpose. On the test files, the other combinations
+ * (lp2 for the 4-byte matrix and pixel data, lc0 to lc4, pb0) changed the size by less than 0.15%,
+ * and they made some files smaller and others larger.
+ */
+public enum LzmaProfile {
+    FAST(3, 1 << 16, 3, 0, 2, Encoder.EMatchFinderTypeBT4, 16),
+    BALANCED(CompressionSettings.DEFAULT_LZMA_LEVEL, 1 << 18, 3, 0, 2, Encoder.EMatchFinderTypeBT4, 32),
+    MAX(9, 1 << 22, 3, 0, 2, Encoder.EMatchFinderTypeBT4, 128);
+
+    private final int level;
+    private final int dictionarySize;
+    private final int literalContextBits;
+    private final int literalPosBits;
+    private final int posBits;
+    private final int matchFinder;
+    private final int numFastBytes;
+
+    LzmaProfile(int level, int dictionarySize, int literalContextBits, int literalPosBits, int posBits, int matchFinder, int numFastBytes) {
+        this.level = level;
+        this.dictionarySize = dictionarySize;
+        this.literalContextBits = literalContextBits;
+        this.literalPosBits = literalPosBits;
+        this.posBits = posBits;
+        this.matchFinder = matchFinder;
+        this.numFastBytes = numFastBytes;
+    }
+
+    /**
+     * @param level from 1 to 9, levels below 5 are fast and levels above 6 are max
+     */
+    public static LzmaProfile fromLevel(int level) {
+        if (level < BALANCED.level) return FAST;
+        if (level < 7) return BALANCED;
+        return MAX;
+    }
+
+    /**
+     * Sets all profile parameters, so the encoder may be reused after another profile.
+     */
+    public void apply(Encoder encoder) {
+        encoder.setDictionarySize(this.dictionarySize);
+        encoder.setLcLpPb(this.literalContextBits, this.literalPosBits, this.posBits);
+        encoder.setMatchFinder(this.matchFinder);
+        encoder.setNumFastBytes(this.numFastBytes);
+    }
+
+    /**
+     * @return compression level which selects this profile in {@link CompressionSettings}
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    public int getDictionarySize() {
+        return dictionarySize;
+    }
+
+    public int getLiteralContextBits() {
+        return literalContextBits;
+    }
+
+    public int getLiteralPosBits() {
+        return literalPosBits;
+    }
+
+    public int getPosBits() {
+        return posBits;
+    }
+
+    public int getMatchFinder() {
+        return matchFinder;
+    }
+
+    public int getNumFastBytes() {
+        return numFastBytes;
+    }
+}
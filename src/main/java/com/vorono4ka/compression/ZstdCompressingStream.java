@@ -0,0 +1,95 @@
+package com.vorono4ka.compression;
+
+import com.github.luben.zstd.EndDirective;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.vorono4ka.utilities.BufferUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses the written data into a single zstd frame chunk by chunk.
+ * The frame content size is set in advance, since the decompressor requires it.
+ */
+final class ZstdCompressingStream extends OutputStream {
+    private static final int CHUNK_SIZE = 128 * 1024;
+
+    private final OutputStream output;
+    private final int size;
+    private final CodecContext context;
+    private final ZstdCompressCtx compressContext;
+
+    private final ByteBuffer source = BufferUtils.allocateDirect(CHUNK_SIZE);
+    private final ByteBuffer destination = BufferUtils.allocateDirect(CHUNK_SIZE);
+    private final byte[] outputChunk = new byte[CHUNK_SIZE];
+
+    private long writtenSize;
+    private boolean isClosed;
+
+    ZstdCompressingStream(OutputStream output, int size, CodecContext context, CompressionSettings settings) {
+        this.output = output;
+        this.size = size;
+        this.context = context;
+
+        this.compressContext = Compressor.createZstdContext(context, settings.level(), settings.threadCount(), settings.dictionary());
+        this.compressContext.setPledgedSrcSize(size);
+    }
+
+    @Override
+    public void write(int value) throws IOException {
+        this.write(new byte[]{(byte) value}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            int count = Math.min(length, this.source.remaining());
+            this.source.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+            this.writtenSize += count;
+
+            if (!this.source.hasRemaining()) {
+                this.compressSource(EndDirective.CONTINUE);
+            }
+        }
+    }
+
+    /**
+     * Finishes the frame and flushes it into the output.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.isClosed) return;
+        this.isClosed = true;
+
+        try {
+            if (this.writtenSize != this.size) {
+                throw new IOException("Written " + this.writtenSize + " bytes instead of " + this.size);
+            }
+
+            this.compressSource(EndDirective.END);
+            this.output.flush();
+        } finally {
+            this.context.close();
+        }
+    }
+
+    private void compressSource(EndDirective directive) throws IOException {
+        this.source.flip();
+
+        boolean isDone;
+        do {
+            this.destination.clear();
+            isDone = this.compressContext.compressDirectByteBufferStream(this.destination, this.source, directive);
+            this.destination.flip();
+
+            int count = this.destination.remaining();
+            this.destination.get(this.outputChunk, 0, count);
+            this.output.write(this.outputChunk, 0, count);
+        } while (this.source.hasRemaining() || (directive == EndDirective.END && !isDone));
+
+        this.source.clear();
+    }
+}
@@ -1,5 +1,7 @@
 package com.vorono4ka.editor;
 
+import com.vorono4ka.compression.CompressionSettings;
+import com.vorono4ka.compression.DecompressedFileCache;
 import com.vorono4ka.editor.displayObjects.SpriteSheet;
 import com.vorono4ka.editor.layout.components.Table;
 import com.vorono4ka.editor.layout.menubar.menus.EditMenu;
@@ -12,16 +14,16 @@ import com.vorono4ka.editor.layout.windows.UsagesWindow;
 import com.vorono4ka.editor.renderer.Stage;
 import com.vorono4ka.exporter.ImageExporter;
 import com.vorono4ka.swf.GLImage;
+import com.vorono4ka.swf.SaveResult;
 import com.vorono4ka.swf.SupercellSWF;
+import com.vorono4ka.swf.UsageGraph;
 import com.vorono4ka.swf.displayObjects.DisplayObject;
 import com.vorono4ka.swf.displayObjects.MovieClip;
 import com.vorono4ka.swf.exceptions.LoadingFaultException;
 import com.vorono4ka.swf.exceptions.TextureFileNotFound;
 import com.vorono4ka.swf.exceptions.UnableToFindObjectException;
 import com.vorono4ka.swf.exceptions.UnsupportedCustomPropertyException;
-import com.vorono4ka.swf.originalObjects.MovieClipOriginal;
-import com.vorono4ka.swf.originalObjects.SWFTexture;
-import com.vorono4ka.utilities.ArrayUtils;
+import com.vorono4ka.swf.originalObjects.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,7 +37,8 @@ public class Editor {
     private final EditorWindow window = new EditorWindow();
 
     private final List<UsagesWindow> usagesWindows = new ArrayList<>();
-    private final List<SpriteSheet> spriteSheets = new ArrayList<>();
+    // Created when the texture is viewed for the first time
+    private SpriteSheet[] spriteSheets = new SpriteSheet[0];
 
     // For selection history
     private final List<DisplayObject> clonedObjects = new ArrayList<>();
@@ -47,12 +50,17 @@ public class Editor {
 
     private SupercellSWF swf;
 
+    private CompressionSettings compressionSettings = CompressionSettings.RELEASE;
+    private boolean isFileCacheEnabled = DecompressedFileCache.isEnabledByDefault();
+
     // Editor debug stuff
     private boolean shouldDisplayPolygons;
 
     public void openFile(String path) {
         try {
             this.swf = new SupercellSWF();
+            this.swf.setLazyTextureDecoding(true);
+            this.swf.setFileCacheEnabled(this.isFileCacheEnabled);
             this.swf.load(path, path.substring(path.lastIndexOf("\\") + 1));
         } catch (LoadingFaultException | UnableToFindObjectException |
                  UnsupportedCustomPropertyException exception) {
@@ -65,10 +73,10 @@ public class Editor {
 
         this.window.setTitle(Main.TITLE + " - " + this.swf.getFilename());
 
-        List<GLImage> images = uploadImagesToOpenGl();
+        this.addLazyImages();
 
         SwingUtilities.invokeLater(this::updateObjectTable);
-        SwingUtilities.invokeLater(() -> this.updateTextureTable(images));
+        SwingUtilities.invokeLater(this::updateTextureTable);
 
         FileMenu fileMenu = this.window.getMenubar().getFileMenu();
         fileMenu.checkCanSave();
@@ -77,7 +85,19 @@ public class Editor {
     public void saveFile(String path) {
         if (this.swf == null) return;
 
-        this.swf.save(path);
+        SaveResult result = this.swf.save(path, this.compressionSettings);
+        if (result == null) {
+            this.window.showErrorDialog("Cannot save the file: " + path);
+            return;
+        }
+
+        this.window.getStatusBar().setStatus(String.format(
+            "Saved with %s in %d ms, %.2f MB -> %.2f MB",
+            result.codec(),
+            result.timeMillis(),
+            result.uncompressedSize() / 1024f / 1024f,
+            result.compressedSize() / 1024f / 1024f
+        ));
     }
 
     public void closeFile() {
@@ -98,7 +118,7 @@ public class Editor {
 
         this.usagesWindows.clear();
 
-        this.spriteSheets.clear();
+        this.spriteSheets = new SpriteSheet[0];
 
         FileMenu fileMenu = this.window.getMenubar().getFileMenu();
         fileMenu.checkCanSave();
@@ -110,12 +130,20 @@ public class Editor {
         if (this.swf != null) {
             Stage stage = Stage.getInstance();
 
-            int[] textureIds = new int[this.swf.getTextureCount()];
+            List<GLImage> images = new ArrayList<>();
             for (int i = 0; i < this.swf.getTextureCount(); i++) {
-                textureIds[i] = stage.getImageByIndex(this.swf.getTexture(i).getIndex()).getTextureId();
+                GLImage image = stage.removeImage(this.swf.getTexture(i).getIndex());
+                if (image != null) {
+                    images.add(image);
+                }
             }
 
-            stage.doInRenderThread(() -> stage.getGl().glDeleteTextures(textureIds.length, textureIds, 0));
+            // Textures which are still decoding are not uploaded after disposing
+            stage.doInRenderThread(() -> {
+                for (GLImage image : images) {
+                    image.dispose();
+                }
+            });
             stage.clearBatches();
             stage.removeAllChildren();
 
@@ -200,27 +228,43 @@ public class Editor {
             title += " - " + name;
         }
 
+        UsageGraph usageGraph = this.swf.getUsageGraph();
+        this.showUsages(title, usageGraph.getParents(displayObjectId), usageGraph.getAllParents(displayObjectId));
+    }
+
+    public void findTextureUsages(int textureIndex) {
+        UsageGraph usageGraph = this.swf.getUsageGraph();
+        this.showUsages("Usages - texture " + textureIndex, usageGraph.getTextureUsers(textureIndex), usageGraph.getAllTextureUsers(textureIndex));
+    }
+
+    private void showUsages(String title, int[] directUserIds, int[] allUserIds) {
         UsagesWindow usagesWindow = new UsagesWindow();
         usagesWindow.initialize(title);
         this.usagesWindows.add(usagesWindow);
 
-        Table objectsTable = usagesWindow.getObjectsTable();
-
-        Integer[] ids = this.swf.getMovieClipsIds();
-        try {
-            for (int i = 0; i < this.swf.getMovieClipCount(); i++) {
-                int movieClipId = ids[i];
+        usagesWindow.setUsages(this.createUsageRows(directUserIds), this.createUsageRows(allUserIds));
+        usagesWindow.show();
+    }
 
-                MovieClipOriginal movieClipOriginal = this.swf.getOriginalMovieClip(movieClipId, null);
-                if (ArrayUtils.contains(movieClipOriginal.getChildrenIds(), (short) displayObjectId)) {
-                    objectsTable.addRow(movieClipId, movieClipOriginal.getExportName(), "MovieClip");
+    private List<Object[]> createUsageRows(int[] ids) {
+        List<Object[]> rows = new ArrayList<>(ids.length);
+
+        for (int id : ids) {
+            try {
+                DisplayObjectOriginal displayObject = this.swf.getOriginalDisplayObject(id, null);
+                if (displayObject instanceof MovieClipOriginal movieClip) {
+                    rows.add(new Object[]{id, movieClip.getExportName(), "MovieClip"});
+                } else if (displayObject instanceof ShapeOriginal) {
+                    rows.add(new Object[]{id, null, "Shape"});
+                } else if (displayObject instanceof TextFieldOriginal) {
+                    rows.add(new Object[]{id, null, "TextField"});
                 }
+            } catch (UnableToFindObjectException e) {
+                LOGGER.error(e.getMessage(), e);
             }
-        } catch (UnableToFindObjectException e) {
-            throw new RuntimeException(e);
         }
 
-        usagesWindow.show();
+        return rows;
     }
 
     public int getClonedObjectCount() {
@@ -244,7 +288,12 @@ public class Editor {
     }
 
     public SpriteSheet getSpriteSheet(int index) {
-        return this.spriteSheets.get(index);
+        if (this.spriteSheets[index] == null) {
+            GLImage image = Stage.getInstance().getImageByIndex(this.swf.getTexture(index).getIndex());
+            this.spriteSheets[index] = new SpriteSheet(image, this.swf.getDrawBitmapsOfTexture(index));
+        }
+
+        return this.spriteSheets[index];
     }
 
     public boolean shouldDisplayPolygons() {
@@ -255,6 +304,22 @@ public class Editor {
         this.shouldDisplayPolygons = shouldDisplayPolygons;
     }
 
+    public CompressionSettings getCompressionSettings() {
+        return this.compressionSettings;
+    }
+
+    public void setCompressionSettings(CompressionSettings compressionSettings) {
+        this.compressionSettings = compressionSettings;
+    }
+
+    public boolean isFileCacheEnabled() {
+        return this.isFileCacheEnabled;
+    }
+
+    public void setFileCacheEnabled(boolean fileCacheEnabled) {
+        this.isFileCacheEnabled = fileCacheEnabled;
+    }
+
     private void updateObjectTable() {
         List<Object[]> rowDataList = collectObjectTableRows();
 
@@ -271,30 +336,27 @@ public class Editor {
         }
     }
 
-    private List<GLImage> uploadImagesToOpenGl() {
-        List<GLImage> images = new ArrayList<>();
-
+    /**
+     * Textures are decoded and uploaded only when something using them is rendered.
+     */
+    private void addLazyImages() {
         Stage stage = Stage.getInstance();
         for (int i = 0; i < this.swf.getTextureCount(); i++) {
-            SWFTexture texture = this.swf.getTexture(i);
-            GLImage image = stage.createGLImage(texture);
-            images.add(image);
+            stage.addLazyImage(this.swf.getTexture(i));
         }
-
-        return images;
     }
 
-    private void updateTextureTable(List<GLImage> images) {
+    private void updateTextureTable() {
         Table texturesTable = this.window.getTexturesTable();
         StatusBar statusBar = this.window.getStatusBar();
 
-        try (TaskProgressTracker taskTracker = statusBar.createTaskTracker("Loading textures table...", 0, images.size())) {
-            for (int i = 0; i < images.size(); i++) {
-                GLImage image = images.get(i);
-                texturesTable.addRow(i, image.getWidth(), image.getHeight(), image.getPixelFormat());
+        int textureCount = this.swf.getTextureCount();
+        this.spriteSheets = new SpriteSheet[textureCount];
 
-                SpriteSheet spriteSheet = new SpriteSheet(image, swf.getDrawBitmapsOfTexture(i));
-                this.spriteSheets.add(spriteSheet);
+        try (TaskProgressTracker taskTracker = statusBar.createTaskTracker("Loading textures table...", 0, textureCount)) {
+            for (int i = 0; i < textureCount; i++) {
+                SWFTexture texture = this.swf.getTexture(i);
+                texturesTable.addRow(i, texture.getWidth(), texture.getHeight(), texture.getTextureInfo().pixelFormat());
 
                 taskTracker.setValue(i);
             }
@@ -302,17 +364,22 @@ public class Editor {
     }
 
     private List<Object[]> collectObjectTableRows() {
-        List<Object[]> rowDataList = new ArrayList<>();
+        return collectObjectTableRows(this.swf, this.window.getStatusBar());
+    }
 
-        StatusBar statusBar = this.window.getStatusBar();
+    /**
+     * Doesn't use the editor window, so it can be measured without one.
+     */
+    static List<Object[]> collectObjectTableRows(SupercellSWF swf, StatusBar statusBar) {
+        List<Object[]> rowDataList = new ArrayList<>();
 
-        Integer[] movieClipsIds = this.swf.getMovieClipsIds();
+        Integer[] movieClipsIds = swf.getMovieClipsIds();
         try (TaskProgressTracker taskTracker = statusBar.createTaskTracker("Collecting MovieClip info...", 0, movieClipsIds.length)) {
             for (int i = 0; i < movieClipsIds.length; i++) {
                 int movieClipId = movieClipsIds[i];
 
                 try {
-                    MovieClipOriginal movieClipOriginal = this.swf.getOriginalMovieClip(movieClipId, null);
+                    MovieClipOriginal movieClipOriginal = swf.getOriginalMovieClip(movieClipId, null);
                     rowDataList.add(new Object[]{movieClipId, movieClipOriginal.getExportName(), "MovieClip"});
                 } catch (UnableToFindObjectException e) {
                     LOGGER.error(e.getMessage(), e);
@@ -322,7 +389,7 @@ public class Editor {
             }
         }
 
-        Integer[] shapesIds = this.swf.getShapesIds();
+        Integer[] shapesIds = swf.getShapesIds();
         try (TaskProgressTracker taskTracker = statusBar.createTaskTracker("Collecting Shape info...", 0, shapesIds.length)) {
             for (int i = 0; i < shapesIds.length; i++) {
                 int shapesId = shapesIds[i];
@@ -331,7 +398,7 @@ public class Editor {
             }
         }
 
-        Integer[] textFieldsIds = this.swf.getTextFieldsIds();
+        Integer[] textFieldsIds = swf.getTextFieldsIds();
         try (TaskProgressTracker taskTracker = statusBar.createTaskTracker("Collecting TextField info...", 0, textFieldsIds.length)) {
             for (int i = 0; i < textFieldsIds.length; i++) {
                 int textFieldId = textFieldsIds[i];
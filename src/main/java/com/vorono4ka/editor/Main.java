@@ -1,16 +1,32 @@
 package com.vorono4ka.editor;
 
 import com.formdev.flatlaf.FlatLightLaf;
+import com.vorono4ka.cli.CompressionBenchmarkCommand;
+import com.vorono4ka.cli.ExportCommand;
+import com.vorono4ka.cli.ScanCommand;
 import com.vorono4ka.editor.layout.windows.EditorWindow;
 import com.vorono4ka.resources.ResourceManager;
 
 import javax.swing.*;
+import java.util.Arrays;
 
 public class Main {
     public static final String TITLE = "SC Editor";
     public static Editor editor;
 
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals(ExportCommand.NAME)) {
+            System.exit(ExportCommand.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        if (args.length > 0 && args[0].equals(ScanCommand.NAME)) {
+            System.exit(ScanCommand.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
+        if (args.length > 0 && args[0].equals(CompressionBenchmarkCommand.NAME)) {
+            System.exit(CompressionBenchmarkCommand.run(Arrays.copyOfRange(args, 1, args.length)));
+        }
+
         Main.editor = new Editor();
 
         SwingUtilities.invokeLater(() -> {
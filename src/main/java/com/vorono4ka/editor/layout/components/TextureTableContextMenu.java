@@ -6,9 +6,12 @@ import com.vorono4ka.editor.layout.panels.StatusBar;
 import com.vorono4ka.editor.layout.panels.status.TaskProgressTracker;
 import com.vorono4ka.editor.renderer.Stage;
 import com.vorono4ka.editor.renderer.Texture;
+import com.vorono4ka.swf.GLImage;
 import com.vorono4ka.swf.SupercellSWF;
 import com.vorono4ka.utilities.BufferUtils;
 import com.vorono4ka.utilities.ImageUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import java.awt.event.ActionEvent;
@@ -16,8 +19,13 @@ import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.nio.IntBuffer;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class TextureTableContextMenu extends ContextMenu {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TextureTableContextMenu.class);
+
     private final Table table;
 
     public TextureTableContextMenu(Table table) {
@@ -28,6 +36,9 @@ public class TextureTableContextMenu extends ContextMenu {
         JMenuItem exportButton = this.add("Export", KeyEvent.VK_E);
         exportButton.addActionListener(this::export);
 
+        JMenuItem findUsagesButton = this.add("Find Usages", KeyEvent.VK_U);
+        findUsagesButton.addActionListener(this::findUsages);
+
         this.popupMenu.addPopupMenuListener(new TablePopupMenuListener(this.popupMenu, table, this::onRowSelected));
     }
 
@@ -43,13 +54,29 @@ public class TextureTableContextMenu extends ContextMenu {
         Path path = Path.of("screenshots", swf.getFilename());
         path.toFile().mkdirs();
 
-        stage.doInRenderThread(() -> {
+        int[] textureIndices = new int[selectedRows.length];
+        GLImage[] images = new GLImage[selectedRows.length];
+        List<CompletableFuture<?>> uploads = new ArrayList<>(selectedRows.length);
+        for (int i = 0; i < selectedRows.length; i++) {
+            textureIndices[i] = (int) this.table.getValueAt(selectedRows[i], 0);
+            images[i] = stage.getImageByIndex(swf.getTexture(textureIndices[i]).getIndex());
+            uploads.add(images[i].getUpload());
+        }
+
+        // Textures are decoded on demand, so the export is scheduled after their uploads
+        CompletableFuture.allOf(uploads.toArray(CompletableFuture<?>[]::new)).whenComplete((result, throwable) -> stage.doInRenderThread(() -> {
             try (TaskProgressTracker taskTracker = statusBar.createTaskTracker("Exporting textures...", 0, selectedRows.length)) {
                 int progress = 0;
-                for (int selectedRow : selectedRows) {
-                    int textureIndex = (int) this.table.getValueAt(selectedRow, 0);
+                for (int i = 0; i < images.length; i++) {
+                    int textureIndex = textureIndices[i];
+
+                    Texture texture = images[i].getTexture();
+                    if (texture == null) {
+                        LOGGER.warn("Texture {} cannot be exported, it hasn't been decoded", textureIndex);
+                        taskTracker.setValue(++progress);
+                        continue;
+                    }
 
-                    Texture texture = stage.getImageByIndex(swf.getTexture(textureIndex).getIndex()).getTexture();
                     texture.bind();
                     IntBuffer pixels = texture.getPixels(0);
                     texture.unbind();
@@ -62,7 +89,14 @@ public class TextureTableContextMenu extends ContextMenu {
                     taskTracker.setValue(++progress);
                 }
             }
-        });
+        }));
+    }
+
+    private void findUsages(ActionEvent actionEvent) {
+        int selectedRow = this.table.getSelectedRow();
+        if (selectedRow == -1) return;
+
+        Main.editor.findTextureUsages((int) this.table.getValueAt(selectedRow, 0));
     }
 
     private void onRowSelected(int rowIndex) {
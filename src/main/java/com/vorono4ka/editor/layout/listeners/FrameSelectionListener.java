@@ -2,7 +2,7 @@ package com.vorono4ka.editor.layout.listeners;
 
 import com.vorono4ka.editor.Main;
 import com.vorono4ka.editor.layout.panels.info.MovieClipInfoPanel;
-import com.vorono4ka.swf.MovieClipFrameElement;
+import com.vorono4ka.swf.MovieClipFrame;
 import com.vorono4ka.swf.displayObjects.DisplayObject;
 import com.vorono4ka.swf.displayObjects.MovieClip;
 
@@ -34,10 +34,9 @@ public class FrameSelectionListener implements ListSelectionListener {
 
         int index = (int) this.table.getValueAt(selectedRow, 0);
 
-        MovieClipFrameElement[] frameElements = movieClip.getFrames()[index].getElements();
-        for (int i = 0; i < frameElements.length; i++) {
-            MovieClipFrameElement frameElement = frameElements[i];
-            panel.addFrameElement(i, frameElement.getChildIndex(), frameElement.getMatrixIndex(), frameElement.getColorTransformIndex());
+        MovieClipFrame frame = movieClip.getFrames()[index];
+        for (int i = 0; i < frame.getElementCount(); i++) {
+            panel.addFrameElement(i, frame.getChildIndex(i), frame.getMatrixIndex(i), frame.getColorTransformIndex(i));
         }
     }
 }
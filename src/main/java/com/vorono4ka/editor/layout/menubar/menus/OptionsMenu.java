@@ -1,5 +1,7 @@
 package com.vorono4ka.editor.layout.menubar.menus;
 
+import com.vorono4ka.compression.CompressionSettings;
+import com.vorono4ka.compression.DecompressedFileCache;
 import com.vorono4ka.editor.Main;
 
 import javax.swing.*;
@@ -8,6 +10,7 @@ import java.awt.event.KeyEvent;
 
 public class OptionsMenu extends JMenu {
     private final JCheckBoxMenuItem renderPolygonsCheckBox;
+    private final JCheckBoxMenuItem fileCacheCheckBox;
 
     public OptionsMenu() {
         super("Options");
@@ -18,10 +21,38 @@ public class OptionsMenu extends JMenu {
         this.renderPolygonsCheckBox.setMnemonic(KeyEvent.VK_P);
         this.renderPolygonsCheckBox.addActionListener(this::togglePolygonRendering);
 
+        this.fileCacheCheckBox = new JCheckBoxMenuItem("Cache decompressed files", DecompressedFileCache.isEnabledByDefault());
+        this.fileCacheCheckBox.addActionListener(this::toggleFileCache);
+
         this.add(this.renderPolygonsCheckBox);
+        this.add(this.fileCacheCheckBox);
+        this.add(createCompressionMenu());
+    }
+
+    private static JMenu createCompressionMenu() {
+        JMenu compressionMenu = new JMenu("Save compression");
+        compressionMenu.setMnemonic(KeyEvent.VK_C);
+
+        JRadioButtonMenuItem lzmaButton = new JRadioButtonMenuItem("LZMA (release)", true);
+        lzmaButton.addActionListener(e -> Main.editor.setCompressionSettings(CompressionSettings.RELEASE));
+
+        JRadioButtonMenuItem zstdButton = new JRadioButtonMenuItem("Zstandard (fast, development)");
+        zstdButton.addActionListener(e -> Main.editor.setCompressionSettings(CompressionSettings.DEVELOPMENT));
+
+        ButtonGroup group = new ButtonGroup();
+        group.add(lzmaButton);
+        group.add(zstdButton);
+
+        compressionMenu.add(lzmaButton);
+        compressionMenu.add(zstdButton);
+        return compressionMenu;
     }
 
     private void togglePolygonRendering(ActionEvent event) {
         Main.editor.setShouldDisplayPolygons(this.renderPolygonsCheckBox.getState());
     }
+
+    private void toggleFileCache(ActionEvent event) {
+        Main.editor.setFileCacheEnabled(this.fileCacheCheckBox.getState());
+    }
 }
@@ -5,25 +5,51 @@ import com.vorono4ka.editor.layout.panels.DisplayObjectListPanel;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.List;
 
 public class UsagesWindow extends Window {
     public static final Dimension CANVAS_SIZE = new Dimension(300, 0);
     public static final Dimension MINIMUM_SIZE = new Dimension(CANVAS_SIZE);
 
     private DisplayObjectListPanel displayObjectPanel;
+    private JCheckBox indirectUsagesCheckBox;
+
+    private List<Object[]> directUsages = List.of();
+    private List<Object[]> allUsages = List.of();
 
     public void initialize(String title) {
         this.frame = new JFrame(title);
 
         this.frame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 
+        this.indirectUsagesCheckBox = new JCheckBox("Include indirect usages");
+        this.indirectUsagesCheckBox.addActionListener(e -> this.updateTable());
+
         this.displayObjectPanel = new DisplayObjectListPanel();
+        this.frame.getContentPane().add(this.indirectUsagesCheckBox, BorderLayout.NORTH);
         this.frame.getContentPane().add(this.displayObjectPanel);
         this.frame.setMinimumSize(MINIMUM_SIZE);
         this.frame.setSize(this.frame.getContentPane().getPreferredSize());
     }
 
+    /**
+     * @param directUsages rows of objects using the target directly
+     * @param allUsages    rows of objects using the target at any depth
+     */
+    public void setUsages(List<Object[]> directUsages, List<Object[]> allUsages) {
+        this.directUsages = directUsages;
+        this.allUsages = allUsages;
+
+        this.updateTable();
+    }
+
     public Table getObjectsTable() {
         return this.displayObjectPanel.getTable();
     }
+
+    private void updateTable() {
+        Table table = this.getObjectsTable();
+        table.clear();
+        table.addRows(this.indirectUsagesCheckBox.isSelected() ? this.allUsages : this.directUsages);
+    }
 }
@@ -23,6 +23,7 @@ import org.slf4j.LoggerFactory;
 import java.awt.image.BufferedImage;
 import java.nio.FloatBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class Stage {
@@ -30,12 +31,16 @@ public class Stage {
 
     private static final Rect VIEWPORT_RECT = new Rect(-1, -1, 1, 1);
     private static final int[] RECT_INDICES = {0, 1, 2, 0, 2, 3};
+    // Translucent gray, premultiplied by alpha
+    private static final byte[] PLACEHOLDER_PIXEL = {0x40, 0x40, 0x40, 0x40};
 
     private static int STAGE_COUNT;
     private static Stage INSTANCE;
 
     private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
-    private final Map<Integer, GLImage> images = new HashMap<>();
+    private final Map<Integer, GLImage> images = new ConcurrentHashMap<>();
+    // Textures whose images are created on the first request, guarded by itself
+    private final Map<Integer, SWFTexture> lazyTextures = new HashMap<>();
     private final List<Batch> batches = new ArrayList<>();
     private final Camera camera = new Camera();
     private final BatchPool batchPool = new BatchPool();
@@ -48,6 +53,7 @@ public class Stage {
     private Batch currentBatch;
     private Batch screenBatch;
     private GLImage gradientTexture;
+    private GLImage placeholderTexture;
     private Framebuffer framebuffer;
 
     private boolean isCalculatingBounds;
@@ -101,6 +107,12 @@ public class Stage {
 
         this.gradientTexture.createWithFormat(null, true, 1, 256, 2, ImageUtils.getPixelBuffer(imageBuffer), GL3.GL_LUMINANCE_ALPHA, GL3.GL_UNSIGNED_BYTE);
 
+        if (this.placeholderTexture == null) {
+            this.placeholderTexture = new GLImage();
+        }
+
+        this.placeholderTexture.createWithFormat(null, true, 0, 1, 1, BufferUtils.wrapDirect(PLACEHOLDER_PIXEL), GL3.GL_RGBA, GL3.GL_UNSIGNED_BYTE);
+
         this.camera.init(width, height);
 
         gl.glViewport(x, y, width, height);
@@ -120,6 +132,23 @@ public class Stage {
     public void update() {
         if (!this.initialized) return;
 
+        this.runTasks();
+
+        float deltaTime = 1f / Main.editor.getWindow().getTargetFps(); // TODO: calculate delta time more precisely
+
+        if (isAnimationPaused) {
+            deltaTime = 0;
+        }
+
+        render(deltaTime);
+    }
+
+    /**
+     * Runs all tasks scheduled with {@link #doInRenderThread(Runnable)}. <br>
+     * <br>
+     * Must be called in the thread owning the current GL context.
+     */
+    public void runTasks() {
         Iterator<Runnable> iterator = this.tasks.iterator();
         while (iterator.hasNext()) {
             Runnable task = iterator.next();
@@ -131,14 +160,6 @@ public class Stage {
 
             iterator.remove();
         }
-
-        float deltaTime = 1f / Main.editor.getWindow().getTargetFps(); // TODO: calculate delta time more precisely
-
-        if (isAnimationPaused) {
-            deltaTime = 0;
-        }
-
-        render(deltaTime);
     }
 
     public void render(float deltaTime) {
@@ -196,6 +217,11 @@ public class Stage {
             this.gradientTexture = null;
         }
 
+        if (this.placeholderTexture != null && this.placeholderTexture.getTexture() != null) {
+            this.placeholderTexture.getTexture().delete();
+            this.placeholderTexture = null;
+        }
+
         this.clearBatches();
 
         this.initialized = false;
@@ -332,13 +358,69 @@ public class Stage {
         return stageSprite;
     }
 
+    /**
+     * Returns the image, creating it if its texture was added with {@link #addLazyImage(SWFTexture)}.
+     *
+     * @return image or null, if there is no texture with such index
+     */
     public GLImage getImageByIndex(int index) {
-        return this.images.get(index);
+        GLImage image = this.images.get(index);
+        if (image != null) return image;
+
+        synchronized (this.lazyTextures) {
+            image = this.images.get(index);
+            if (image != null) return image;
+
+            SWFTexture texture = this.lazyTextures.remove(index);
+            return texture != null ? this.createGLImage(texture) : null;
+        }
+    }
+
+    /**
+     * @return uploaded texture of the image or a placeholder, while the texture is being decoded
+     */
+    public Texture getImageTexture(int index) {
+        GLImage image = this.getImageByIndex(index);
+        if (image != null && image.getTexture() != null) {
+            return image.getTexture();
+        }
+
+        return this.placeholderTexture != null ? this.placeholderTexture.getTexture() : null;
+    }
+
+    /**
+     * Remembers the texture without decoding it.
+     * The image is created and uploaded when it is requested for the first time.
+     */
+    public void addLazyImage(SWFTexture texture) {
+        synchronized (this.lazyTextures) {
+            this.images.remove(texture.getIndex());
+            this.lazyTextures.put(texture.getIndex(), texture);
+        }
+    }
+
+    /**
+     * Forgets the image of the texture, the image is not created if it hasn't been requested.
+     *
+     * @return removed image or null, if it hasn't been created
+     */
+    public GLImage removeImage(int index) {
+        synchronized (this.lazyTextures) {
+            this.lazyTextures.remove(index);
+            return this.images.remove(index);
+        }
     }
 
+    /**
+     * Creates an image of the texture. The image is uploaded to OpenGL as soon as the texture is decoded.
+     */
     public GLImage createGLImage(SWFTexture texture) {
         GLImage image = new GLImage();
-        image.createWithFormat(texture.getKhronosTexture(), false, texture.getTag().getTextureFilter(), texture.getWidth(), texture.getHeight(), texture.getPixels(), texture.getTextureInfo().pixelFormat(), texture.getTextureInfo().pixelType());
+        image.createWithFormat(texture.getKhronosTextureAsync(), false, texture.getTag().getTextureFilter(), texture.getWidth(), texture.getHeight(), texture.getPixelsAsync(), texture.getTextureInfo().pixelFormat(), texture.getTextureInfo().pixelType())
+            .exceptionally(throwable -> {
+                LOGGER.error("An error occurred while decoding the texture {}", texture.getIndex(), throwable);
+                return null;
+            });
         this.images.put(texture.getIndex(), image);
 
         return image;
@@ -0,0 +1,34 @@
+package com.vorono4ka.streams;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        if (!this.buffer.hasRemaining()) return -1;
+
+        return this.buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) return 0;
+        if (!this.buffer.hasRemaining()) return -1;
+
+        length = Math.min(length, this.buffer.remaining());
+        this.buffer.get(bytes, offset, length);
+        return length;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.remaining();
+    }
+}
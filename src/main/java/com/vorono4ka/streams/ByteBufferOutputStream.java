@@ -0,0 +1,29 @@
+package com.vorono4ka.streams;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes into a preallocated buffer, the buffer is never grown.
+ */
+public class ByteBufferOutputStream extends OutputStream {
+    private final ByteBuffer buffer;
+
+    public ByteBufferOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int value) {
+        this.buffer.put((byte) value);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        this.buffer.put(bytes, offset, length);
+    }
+
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+}
@@ -2,16 +2,24 @@ package com.vorono4ka.streams;
 
 import com.vorono4ka.swf.constants.Tag;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.function.Consumer;
 
 public class ByteStream {
     public static final int DEFAULT_BUFFER_LENGTH = 16;
+    // Written data is passed to the output in chunks of at least this size
+    public static final int OUTPUT_CHUNK_SIZE = 64 * 1024;
 
-    private byte[] data;
-    private int position;
+    private ByteBuffer buffer;
+
+    private OutputStream output;
+    private long flushedSize;
+    private int blockDepth;
 
     public ByteStream() {
         this(new byte[ByteStream.DEFAULT_BUFFER_LENGTH]);
@@ -21,63 +29,115 @@ public class ByteStream {
         this.setData(data);
     }
 
+    /**
+     * Creates a stream reading from the buffer without copying it,
+     * e.g. from a memory-mapped file or a decompressed direct buffer.
+     *
+     * @param buffer data, read starting from its current position
+     */
+    public ByteStream(ByteBuffer buffer) {
+        this.setBuffer(buffer);
+    }
+
+    /**
+     * Creates a stream which passes written data to the output instead of keeping all of it in memory. <br>
+     * <br>
+     * Block lengths are patched in after the block is written, so a block is kept in memory until it's finished
+     * and the data is passed to the output between top-level blocks. {@link #flush()} the stream after writing.
+     * Output errors are thrown as {@link UncheckedIOException}.
+     */
+    public ByteStream(OutputStream output) {
+        this(new byte[OUTPUT_CHUNK_SIZE]);
+        this.output = output;
+    }
+
+    /**
+     * Creates a stream reading the same data with its own position.
+     */
+    public ByteStream duplicate() {
+        return new ByteStream(this.buffer.duplicate().position(0));
+    }
+
     public boolean isAtAnd() {
-        return this.position >= this.data.length;
+        return !this.buffer.hasRemaining();
     }
 
     public void ensureCapacity(int count) {
-        int capacity = this.position + count;
-        if (this.data.length < capacity) {
-            int newSize = (int) (this.data.length * 1.5f);
+        if (this.output != null && this.blockDepth == 0 && this.buffer.position() + count > this.buffer.limit()) {
+            this.flush();
+        }
+
+        int capacity = this.buffer.position() + count;
+        if (this.buffer.limit() < capacity) {
+            int newSize = (int) (this.buffer.limit() * 1.5f);
             if (newSize < capacity) {
                 newSize = capacity;
             }
 
-            this.data = Arrays.copyOf(this.data, newSize);
+            ByteBuffer grownBuffer = ByteBuffer.allocate(newSize).order(ByteOrder.LITTLE_ENDIAN);
+            grownBuffer.put(0, this.buffer, 0, this.buffer.limit());
+            grownBuffer.position(this.buffer.position());
+
+            this.buffer = grownBuffer;
         }
     }
 
     public void write(byte[] data) {
         this.ensureCapacity(data.length);
 
-        System.arraycopy(data, 0, this.data, this.position, data.length);
-        this.position += data.length;
+        this.buffer.put(data);
+    }
+
+    /**
+     * Copies the bytes from the buffer without changing its position. <br>
+     * <br>
+     * Outside of blocks, the bytes are passed to the output in chunks, so the buffer isn't grown for large data.
+     */
+    public void write(ByteBuffer data, int offset, int length) {
+        while (length > 0) {
+            int count = length;
+            if (this.output != null && this.blockDepth == 0) {
+                count = Math.min(count, OUTPUT_CHUNK_SIZE);
+            }
+
+            this.ensureCapacity(count);
+            this.buffer.put(this.buffer.position(), data, offset, count);
+            this.buffer.position(this.buffer.position() + count);
+
+            offset += count;
+            length -= count;
+        }
     }
 
     public byte[] read(int length) {
         byte[] data = new byte[length];
-        if (length <= this.data.length - this.position) {
-            System.arraycopy(this.data, this.position, data, 0, length);
-            this.position += length;
+        if (length <= this.buffer.remaining()) {
+            this.buffer.get(data);
         }
 
         return data;
     }
 
     public void skip(int length) {
-        this.position += length;
+        this.buffer.position(this.buffer.position() + length);
     }
 
     public void writeUnsignedChar(int value) {
         this.ensureCapacity(1);
 
-        this.write((byte) value);
+        this.buffer.put((byte) value);
     }
 
     public void writeShort(int value) {
         this.ensureCapacity(2);
 
-        this.write((byte) (value & 0xFF));
-        this.write((byte) ((value >> 8) & 0xFF));
+        this.buffer.putShort((short) value);
     }
 
     public void writeInt(int value) {
         this.ensureCapacity(4);
 
-        this.write((byte) (value & 0xFF));
-        this.write((byte) ((value >> 8) & 0xFF));
-        this.write((byte) ((value >> 16) & 0xFF));
-        this.write((byte) ((value >> 24) & 0xFF));
+        this.buffer.putInt(value);
     }
 
     public void writeBoolean(boolean value) {
@@ -99,31 +159,61 @@ public class ByteStream {
         this.write(stringBytes);
     }
 
+    /**
+     * Writes the tag, the block length and the data written by the consumer into this stream.
+     */
     public void writeBlock(Tag tag, Consumer<ByteStream> consumer) {
-        ByteStream blockStream = new ByteStream();
-        consumer.accept(blockStream);
+        this.writeUnsignedChar(tag.ordinal());
+        this.writeInt(0);
+        int blockStart = this.buffer.position();
+
+        this.blockDepth++;
+        try {
+            consumer.accept(this);
+        } finally {
+            this.blockDepth--;
+        }
 
-        byte[] blockData = blockStream.getData();
+        this.buffer.putInt(blockStart - Integer.BYTES, this.buffer.position() - blockStart);
 
-        this.writeUnsignedChar(tag.ordinal());
-        this.writeInt(blockData.length);
-        this.write(blockData);
+        if (this.output != null && this.blockDepth == 0 && this.buffer.position() >= OUTPUT_CHUNK_SIZE) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Passes the buffered data to the output, if the stream has one.
+     */
+    public void flush() {
+        if (this.output == null || this.buffer.position() == 0) return;
+
+        try {
+            this.output.write(this.buffer.array(), this.buffer.arrayOffset(), this.buffer.position());
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+
+        this.flushedSize += this.buffer.position();
+        this.buffer.clear();
+    }
+
+    /**
+     * @return count of written bytes, including the ones passed to the output
+     */
+    public long getWrittenSize() {
+        return this.flushedSize + this.buffer.position();
     }
 
     public int readUnsignedChar() {
-        return this.data[this.position++] & 0xFF;
+        return this.buffer.get() & 0xFF;
     }
 
     public int readShort() {
-        return this.readUnsignedChar() |
-            this.readUnsignedChar() << 8;
+        return this.buffer.getShort() & 0xFFFF;
     }
 
     public int readInt() {
-        return this.readUnsignedChar() |
-            this.readUnsignedChar() << 8 |
-            this.readUnsignedChar() << 16 |
-            this.readUnsignedChar() << 24;
+        return this.buffer.getInt();
     }
 
     public boolean readBoolean() {
@@ -143,50 +233,61 @@ public class ByteStream {
 
     public byte[] readByteArray(int count) {
         byte[] array = new byte[count];
-        for (int i = 0; i < array.length; i++) {
-            array[i] = (byte) this.readUnsignedChar();
-        }
+        this.buffer.get(array);
 
         return array;
     }
 
     public short[] readShortArray(int count) {
         short[] array = new short[count];
-        for (int i = 0; i < array.length; i++) {
-            array[i] = (short) this.readShort();
-        }
+        this.buffer.asShortBuffer().get(array);
+        this.skip(count * Short.BYTES);
 
         return array;
     }
 
     public int[] readIntArray(int count) {
         int[] array = new int[count];
-        for (int i = 0; i < array.length; i++) {
-            array[i] = this.readInt();
-        }
+        this.buffer.asIntBuffer().get(array);
+        this.skip(count * Integer.BYTES);
 
         return array;
     }
 
+    /**
+     * Returns a little-endian view of the next bytes without copying them. <br>
+     * <br>
+     * Note: the view keeps the whole underlying buffer alive.
+     *
+     * @param length byte count
+     * @return view of the stream data
+     */
+    public ByteBuffer readSlice(int length) {
+        ByteBuffer slice = this.buffer.slice(this.buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+        this.skip(length);
+
+        return slice;
+    }
 
     public byte[] getData() {
-        return ByteBuffer.allocate(this.position).put(this.data, 0, this.position).array();
+        byte[] data = new byte[this.buffer.position()];
+        this.buffer.get(0, data);
+        return data;
     }
 
     public void setData(byte[] data) {
-        this.data = data;
-        this.position = 0;
+        this.buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
     }
 
-    public int getPosition() {
-        return this.position;
+    public void setBuffer(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
     }
 
-    public void setPosition(int position) {
-        this.position = position;
+    public int getPosition() {
+        return this.buffer.position();
     }
 
-    private void write(byte value) {
-        this.data[this.position++] = value;
+    public void setPosition(int position) {
+        this.buffer.position(position);
     }
-}
\ No newline at end of file
+}
@@ -41,6 +41,16 @@ public class ColorTransform implements Savable {
         this.blueMultiplier = colorTransform.blueMultiplier;
     }
 
+    public void set(int redAddition, int greenAddition, int blueAddition, int alpha, int redMultiplier, int greenMultiplier, int blueMultiplier) {
+        this.redAddition = redAddition;
+        this.greenAddition = greenAddition;
+        this.blueAddition = blueAddition;
+        this.alpha = alpha;
+        this.redMultiplier = redMultiplier;
+        this.greenMultiplier = greenMultiplier;
+        this.blueMultiplier = blueMultiplier;
+    }
+
     public void read(ByteStream stream) {
         this.redAddition = stream.readUnsignedChar();
         this.greenAddition = stream.readUnsignedChar();
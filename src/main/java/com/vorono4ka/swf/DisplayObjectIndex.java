@@ -0,0 +1,66 @@
+package com.vorono4ka.swf;
+
+import com.vorono4ka.swf.originalObjects.DisplayObjectOriginal;
+
+import java.util.Arrays;
+
+/**
+ * Display objects by their ids. <br>
+ * <br>
+ * Ids are unsigned shorts, so the objects are stored in an array indexed by id.
+ */
+public class DisplayObjectIndex {
+    private static final int MAX_ID = 0xFFFF;
+
+    private DisplayObjectOriginal[] objects = new DisplayObjectOriginal[0];
+    private int maxId = -1;
+
+    /**
+     * Adds the object, if there is no other object with the same id.
+     *
+     * @return false, if the id is already taken
+     */
+    public boolean add(DisplayObjectOriginal object) {
+        int id = object.getId();
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Display object id is out of range: " + id);
+        }
+
+        if (id >= this.objects.length) {
+            this.objects = Arrays.copyOf(this.objects, Math.min(Math.max(id + 1, this.objects.length * 2), MAX_ID + 1));
+        }
+
+        if (this.objects[id] != null) return false;
+
+        this.objects[id] = object;
+        this.maxId = Math.max(this.maxId, id);
+        return true;
+    }
+
+    public void remove(int id) {
+        if (id >= 0 && id < this.objects.length) {
+            this.objects[id] = null;
+        }
+    }
+
+    /**
+     * @return object with the id or null, if there is no such object
+     */
+    public DisplayObjectOriginal get(int id) {
+        if (id < 0 || id >= this.objects.length) return null;
+
+        return this.objects[id];
+    }
+
+    /**
+     * @return the biggest id added to the index or -1, if the index is empty
+     */
+    public int getMaxId() {
+        return maxId;
+    }
+
+    public void clear() {
+        this.objects = new DisplayObjectOriginal[0];
+        this.maxId = -1;
+    }
+}
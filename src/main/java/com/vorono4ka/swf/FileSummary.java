@@ -0,0 +1,15 @@
+package com.vorono4ka.swf;
+
+import com.vorono4ka.swf.constants.Tag;
+
+import java.util.List;
+
+/**
+ * Metadata of a .sc file read by {@link SupercellSWF#scan(String)} without loading its objects.
+ */
+public record FileSummary(String path, int shapeCount, int movieClipCount, int textFieldCount, int matrixCount,
+                          int colorTransformCount, List<Export> exports, List<TextureHeader> textures,
+                          boolean useExternalTexture) {
+    public record TextureHeader(Tag tag, int type, int width, int height) {
+    }
+}
@@ -10,12 +10,16 @@ import team.nulls.ntengine.assets.KhronosTexture;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.IntBuffer;
+import java.util.concurrent.CompletableFuture;
 
 public class GLImage {
     protected Texture texture;
     protected int width;
     protected int height;
     protected int pixelFormat;
+    private CompletableFuture<Void> upload = CompletableFuture.completedFuture(null);
+    // Set and read in the render thread only, so an upload scheduled after disposing is skipped
+    private boolean isDisposed;
 
     private static void loadImage(Texture texture, Buffer pixels, int pixelFormat, int pixelType) {
         int error = texture.init(0, pixelFormat, pixelFormat, pixelType, pixels);
@@ -77,7 +81,36 @@ public class GLImage {
         return texture.getId();
     }
 
+    /**
+     * @return future, which completes when the upload is scheduled in the render thread
+     */
+    public CompletableFuture<Void> getUpload() {
+        return upload;
+    }
+
+    /**
+     * Deletes the uploaded texture and cancels the upload of a texture which is still decoding.
+     * Must be called in the render thread.
+     */
+    public void dispose() {
+        this.isDisposed = true;
+
+        if (this.texture != null) {
+            this.texture.delete();
+            this.texture = null;
+        }
+    }
+
     public void createWithFormat(KhronosTexture ktx, boolean clampToEdge, int filter, int width, int height, Buffer pixels, int pixelFormat, int pixelType) {
+        this.createWithFormat(CompletableFuture.completedFuture(ktx), clampToEdge, filter, width, height, CompletableFuture.completedFuture(pixels), pixelFormat, pixelType);
+    }
+
+    /**
+     * Sets the image info immediately and uploads the texture in the render thread once the data is decoded.
+     *
+     * @return future, which completes when the upload is scheduled
+     */
+    public CompletableFuture<Void> createWithFormat(CompletableFuture<KhronosTexture> ktxFuture, boolean clampToEdge, int filter, int width, int height, CompletableFuture<? extends Buffer> pixelsFuture, int pixelFormat, int pixelType) {
         Stage stage = Stage.getInstance();
         GL3 gl = stage.getGl();
 
@@ -106,7 +139,9 @@ public class GLImage {
             }
         }
 
-        stage.doInRenderThread(() -> {
+        this.upload = ktxFuture.thenAcceptBoth(pixelsFuture, (ktx, pixels) -> stage.doInRenderThread(() -> {
+            if (this.isDisposed) return;
+
             if (this.texture != null) {
                 this.texture.delete();
             }
@@ -131,6 +166,8 @@ public class GLImage {
             gl.glPixelStorei(GL3.GL_UNPACK_ALIGNMENT, channelCount);
 
             texture.unbind();
-        });
+        }));
+
+        return this.upload;
     }
 }
@@ -43,6 +43,15 @@ public class Matrix2x3 implements Savable {
         this.y = matrix.y;
     }
 
+    public void set(float a, float b, float c, float d, float x, float y) {
+        this.a = a;
+        this.b = b;
+        this.c = c;
+        this.d = d;
+        this.x = x;
+        this.y = y;
+    }
+
     public void load(ByteStream stream, boolean isPrecise) {
         float divider = isPrecise ? PRECISE_MULTIPLIER : DEFAULT_MULTIPLIER;
 
@@ -3,29 +3,45 @@ package com.vorono4ka.swf;
 import com.vorono4ka.streams.ByteStream;
 import com.vorono4ka.swf.constants.Tag;
 
+import java.util.Arrays;
+
+/**
+ * Frame label and a range of elements in the packed element array of the MovieClip. <br>
+ * <br>
+ * Each element takes 3 shorts: child index, matrix index and color transform index.
+ */
 public class MovieClipFrame {
+    public static final int ELEMENT_SIZE = 3;
+
     private String label;
-    private MovieClipFrameElement[] elements;
+    private short[] elements;
+    private int elementOffset;
+    private int elementCount;
 
-    public int load(ByteStream stream, Tag tag) {
-        int elementCount = stream.readShort();
+    private boolean isModified;
+
+    /**
+     * @param packedElements      elements of all frames of the MovieClip, used by frames which don't store their elements
+     * @param packedElementOffset index of the first element of this frame in the packed array, in elements
+     * @return element count of the frame
+     */
+    public int load(ByteStream stream, Tag tag, short[] packedElements, int packedElementOffset) {
+        this.elementCount = stream.readShort();
         this.label = stream.readAscii();
 
         if (tag == Tag.MOVIE_CLIP_FRAME) {
-            this.elements = new MovieClipFrameElement[elementCount];
-            for (int i = 0; i < elementCount; i++) {
-                int childIndex = stream.readShort() & 0xFFFF;
-                int matrixIndex = stream.readShort() & 0xFFFF;
-                int colorTransformIndex = stream.readShort() & 0xFFFF;
-                this.elements[i] = new MovieClipFrameElement(childIndex, matrixIndex, colorTransformIndex);
-            }
+            this.elements = stream.readShortArray(this.elementCount * ELEMENT_SIZE);
+            this.elementOffset = 0;
+        } else {
+            this.elements = packedElements;
+            this.elementOffset = packedElementOffset;
         }
 
-        return elementCount;
+        return this.elementCount;
     }
 
     public void save(ByteStream stream) {
-        stream.writeShort(this.elements.length);
+        stream.writeShort(this.elementCount);
         stream.writeAscii(this.label);
     }
 
@@ -33,11 +49,43 @@ public class MovieClipFrame {
         return label;
     }
 
-    public MovieClipFrameElement[] getElements() {
-        return elements;
+    public int getElementCount() {
+        return elementCount;
+    }
+
+    public int getChildIndex(int elementIndex) {
+        return this.elements[(this.elementOffset + elementIndex) * ELEMENT_SIZE] & 0xFFFF;
+    }
+
+    public int getMatrixIndex(int elementIndex) {
+        return this.elements[(this.elementOffset + elementIndex) * ELEMENT_SIZE + 1] & 0xFFFF;
+    }
+
+    public int getColorTransformIndex(int elementIndex) {
+        return this.elements[(this.elementOffset + elementIndex) * ELEMENT_SIZE + 2] & 0xFFFF;
+    }
+
+    /**
+     * Copies the elements, so the packed array shared with other frames stays unchanged.
+     *
+     * @param elements child index, matrix index and color transform index of each element
+     */
+    public void setElements(short[] elements) {
+        this.elements = Arrays.copyOf(elements, elements.length - elements.length % ELEMENT_SIZE);
+        this.elementOffset = 0;
+        this.elementCount = this.elements.length / ELEMENT_SIZE;
+        this.isModified = true;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+        this.isModified = true;
     }
 
-    public void setElements(MovieClipFrameElement[] elements) {
-        this.elements = elements;
+    /**
+     * @return true, if the frame has been changed since loading, so its MovieClip has to be saved again
+     */
+    public boolean isModified() {
+        return isModified;
     }
 }
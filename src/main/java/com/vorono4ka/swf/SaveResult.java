@@ -0,0 +1,6 @@
+package com.vorono4ka.swf;
+
+import com.vorono4ka.compression.CompressionSettings;
+
+public record SaveResult(CompressionSettings.Codec codec, int uncompressedSize, int compressedSize, long timeMillis) {
+}
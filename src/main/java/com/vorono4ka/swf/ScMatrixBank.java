@@ -1,45 +1,142 @@
 package com.vorono4ka.swf;
 
-import java.util.ArrayList;
-import java.util.List;
+import com.vorono4ka.streams.ByteStream;
 
+import java.util.Arrays;
+
+/**
+ * Matrices and color transforms stored in flat arrays instead of separate objects. <br>
+ * <br>
+ * Large files have hundreds of thousands of them, so object headers and pointers
+ * would take more memory than the values themselves.
+ */
 public class ScMatrixBank {
-    private List<Matrix2x3> matrices;
-    private List<ColorTransform> colorTransforms;
+    private static final int MATRIX_STRIDE = 6;
+    private static final int COLOR_TRANSFORM_STRIDE = 7;
+
+    // a, b, c, d, x, y
+    private float[] matrices;
+    // redAddition, greenAddition, blueAddition, alpha, redMultiplier, greenMultiplier, blueMultiplier
+    private byte[] colorTransforms;
+
+    // Offsets of the tags in the loaded file, -1 for values which aren't loaded
+    private int[] loadedMatrixTagOffsets;
+    private int[] loadedColorTransformTagOffsets;
 
     public void init(int matrixCount, int colorTransformCount) {
-        this.matrices = new ArrayList<>(matrixCount);
-        for (int i = 0; i < matrixCount; i++) {
-            this.matrices.add(i, new Matrix2x3());
+        this.matrices = new float[matrixCount * MATRIX_STRIDE];
+        for (int i = 0; i < this.matrices.length; i += MATRIX_STRIDE) {
+            this.matrices[i] = 1f;
+            this.matrices[i + 3] = 1f;
         }
 
-        this.colorTransforms = new ArrayList<>(colorTransformCount);
-        for (int i = 0; i < colorTransformCount; i++) {
-            this.colorTransforms.add(i, new ColorTransform());
+        this.colorTransforms = new byte[colorTransformCount * COLOR_TRANSFORM_STRIDE];
+        for (int i = 0; i < this.colorTransforms.length; i += COLOR_TRANSFORM_STRIDE) {
+            Arrays.fill(this.colorTransforms, i + 3, i + COLOR_TRANSFORM_STRIDE, (byte) 255);
         }
+
+        this.loadedMatrixTagOffsets = new int[matrixCount];
+        Arrays.fill(this.loadedMatrixTagOffsets, -1);
+
+        this.loadedColorTransformTagOffsets = new int[colorTransformCount];
+        Arrays.fill(this.loadedColorTransformTagOffsets, -1);
     }
 
-    public List<Matrix2x3> getMatrices() {
-        return this.matrices;
+    public void loadMatrix(int index, ByteStream stream, boolean isPrecise) {
+        float divider = isPrecise ? Matrix2x3.PRECISE_MULTIPLIER : Matrix2x3.DEFAULT_MULTIPLIER;
+
+        int offset = index * MATRIX_STRIDE;
+        this.matrices[offset] = stream.readInt() / divider;
+        this.matrices[offset + 1] = stream.readInt() / divider;
+        this.matrices[offset + 2] = stream.readInt() / divider;
+        this.matrices[offset + 3] = stream.readInt() / divider;
+        this.matrices[offset + 4] = stream.readTwip();
+        this.matrices[offset + 5] = stream.readTwip();
     }
 
-    public List<ColorTransform> getColorTransforms() {
-        return colorTransforms;
+    public void loadColorTransform(int index, ByteStream stream) {
+        int offset = index * COLOR_TRANSFORM_STRIDE;
+        for (int i = 0; i < COLOR_TRANSFORM_STRIDE; i++) {
+            this.colorTransforms[offset + i] = (byte) stream.readUnsignedChar();
+        }
     }
 
+    /**
+     * Copies the matrix values into the given matrix without allocating.
+     */
+    public void copyMatrix(int index, Matrix2x3 destination) {
+        int offset = index * MATRIX_STRIDE;
+        destination.set(
+            this.matrices[offset],
+            this.matrices[offset + 1],
+            this.matrices[offset + 2],
+            this.matrices[offset + 3],
+            this.matrices[offset + 4],
+            this.matrices[offset + 5]
+        );
+    }
+
+    /**
+     * Copies the color transform values into the given color transform without allocating.
+     */
+    public void copyColorTransform(int index, ColorTransform destination) {
+        int offset = index * COLOR_TRANSFORM_STRIDE;
+        destination.set(
+            this.colorTransforms[offset] & 0xFF,
+            this.colorTransforms[offset + 1] & 0xFF,
+            this.colorTransforms[offset + 2] & 0xFF,
+            this.colorTransforms[offset + 3] & 0xFF,
+            this.colorTransforms[offset + 4] & 0xFF,
+            this.colorTransforms[offset + 5] & 0xFF,
+            this.colorTransforms[offset + 6] & 0xFF
+        );
+    }
+
+    /**
+     * @return new matrix with the values of the matrix at the index
+     */
     public Matrix2x3 getMatrix(int index) {
-        return this.matrices.get(index);
+        Matrix2x3 matrix = new Matrix2x3();
+        this.copyMatrix(index, matrix);
+        return matrix;
     }
 
+    /**
+     * @return new color transform with the values of the color transform at the index
+     */
     public ColorTransform getColorTransform(int index) {
-        return this.colorTransforms.get(index);
+        ColorTransform colorTransform = new ColorTransform();
+        this.copyColorTransform(index, colorTransform);
+        return colorTransform;
+    }
+
+    /**
+     * @return offset of the matrix tag in the data of the loaded file or -1, if the matrix isn't loaded
+     */
+    public int getLoadedMatrixTagOffset(int index) {
+        return this.loadedMatrixTagOffsets[index];
+    }
+
+    public void setLoadedMatrixTagOffset(int index, int offset) {
+        this.loadedMatrixTagOffsets[index] = offset;
+    }
+
+    /**
+     * @return offset of the color transform tag in the data of the loaded file or -1, if the color transform isn't loaded
+     */
+    public int getLoadedColorTransformTagOffset(int index) {
+        return this.loadedColorTransformTagOffsets[index];
+    }
+
+    public void setLoadedColorTransformTagOffset(int index, int offset) {
+        this.loadedColorTransformTagOffsets[index] = offset;
     }
 
     public int getMatrixCount() {
-        return this.matrices.size();
+        return this.matrices.length / MATRIX_STRIDE;
     }
 
     public int getColorTransformCount() {
-        return this.colorTransforms.size();
+        return this.colorTransforms.length / COLOR_TRANSFORM_STRIDE;
     }
 }
@@ -1,6 +1,10 @@
 package com.vorono4ka.swf;
 
+import com.vorono4ka.compression.CodecContext;
+import com.vorono4ka.compression.CompressionSettings;
 import com.vorono4ka.compression.Compressor;
+import com.vorono4ka.compression.DecompressedFileCache;
+import com.vorono4ka.compression.DecompressionProgress;
 import com.vorono4ka.compression.Decompressor;
 import com.vorono4ka.compression.exceptions.UnknownFileMagicException;
 import com.vorono4ka.compression.exceptions.UnknownFileVersionException;
@@ -10,26 +14,50 @@ import com.vorono4ka.swf.constants.Tag;
 import com.vorono4ka.swf.exceptions.*;
 import com.vorono4ka.swf.originalObjects.*;
 import com.vorono4ka.utilities.ArrayUtils;
+import com.vorono4ka.utilities.BufferUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 public class SupercellSWF {
     public static final String TEXTURE_EXTENSION = "_tex.sc";
     public static final byte[] START_SECTION_BYTES = {'S', 'T', 'A', 'R', 'T'};
 
+    private static final int MIN_DEFERRED_TAGS_PER_CHUNK = 256;
+    // Deferred tags handed to the pool at once while the rest of the file is still being decompressed
+    private static final int PIPELINED_DEFERRED_TAGS_PER_CHUNK = 4096;
+    // Tag id and length
+    private static final int TAG_HEADER_SIZE = 5;
+    // Tags which have no data, so their zero length doesn't mean an unknown end
+    private static final Set<Tag> EMPTY_TAGS = EnumSet.of(Tag.EOF, Tag.HALF_SCALE_POSSIBLE, Tag.USE_EXTERNAL_TEXTURE, Tag.USE_UNCOMMON_RESOLUTION);
+    // Tags which choose the texture file, the texture file starts loading at the first other tag
+    private static final Set<Tag> TEXTURE_FILE_FLAG_TAGS = EnumSet.of(Tag.USE_EXTERNAL_TEXTURE, Tag.USE_UNCOMMON_RESOLUTION, Tag.EXTERNAL_FILES_SUFFIXES);
+    private static final Tag[] TAGS = Tag.values();
+
     private static final Logger LOGGER = LoggerFactory.getLogger(SupercellSWF.class);
 
     private final List<String> fontsNames = new ArrayList<>();
-    private final List<ScMatrixBank> matrixBanks = new ArrayList<>();
+    // Read by deferred tag chunks while the file is still being indexed
+    private final List<ScMatrixBank> matrixBanks = new CopyOnWriteArrayList<>();
 
     private int shapeCount;
     private int movieClipCount;
@@ -45,6 +73,13 @@ public class SupercellSWF {
 
     private MovieClipModifierOriginal[] movieClipModifiers;
 
+    private final DisplayObjectIndex objectIndex = new DisplayObjectIndex();
+    // Movie clips only, so an object of another type with the same id doesn't hide a movie clip
+    private final DisplayObjectIndex movieClipIndex = new DisplayObjectIndex();
+    // Built on the first request and dropped when a MovieClip changes its children
+    private UsageGraph usageGraph;
+    private List<List<ShapeDrawBitmapCommand>> textureDrawBitmaps = List.of();
+
     private boolean isHalfScalePossible;
     private boolean useUncommonResolution;
     private boolean useExternalTexture;
@@ -53,54 +88,265 @@ public class SupercellSWF {
     private String filename;
     private Path path;
 
+    // Decompressed data of the main file, unmodified objects are saved by copying their tags from it
+    private ByteBuffer loadedData;
+
+    private boolean isPipelinedLoading = true;
+    private boolean isLazyTextureDecoding;
+    private boolean isFileCacheEnabled = DecompressedFileCache.isEnabledByDefault();
+    // Texture file being loaded while the objects of the main file are parsed
+    private FutureTask<TextureFile> textureFileLoading;
+
     public boolean load(String filepath, String filename) throws LoadingFaultException, UnableToFindObjectException, UnsupportedCustomPropertyException, TextureFileNotFound {
         this.filename = filename;
         this.path = Path.of(filepath);
 
-        if (this.loadInternal(filepath, false)) {
-            if (!this.useExternalTexture) return true;
-
-            if (this.useUncommonResolution) {
-                filepath = this.uncommonResolutionTexturePath;
-            } else {
-                filepath = filepath.substring(0, filepath.length() - 3) + TEXTURE_EXTENSION;
+        boolean isLoaded = false;
+        try {
+            isLoaded = this.loadInternal(filepath, null);
+        } finally {
+            if (!isLoaded && this.textureFileLoading != null) {
+                this.textureFileLoading.cancel(true);
+                this.textureFileLoading = null;
             }
+        }
+
+        if (!isLoaded) return false;
+        if (!this.useExternalTexture) return true;
 
-            return this.loadInternal(filepath, true);
+        return this.awaitTextureFile(filepath);
+    }
+
+    private String getTextureFilePath(String filepath) {
+        if (this.useUncommonResolution) {
+            return this.uncommonResolutionTexturePath;
         }
 
-        return false;
+        return filepath.substring(0, filepath.length() - 3) + TEXTURE_EXTENSION;
     }
 
-    private boolean loadInternal(String path, boolean isTextureFile) throws LoadingFaultException, UnableToFindObjectException, UnsupportedCustomPropertyException, TextureFileNotFound {
-        byte[] data;
+    /**
+     * Starts loading the texture file on a separate thread,
+     * so it is decompressed while the objects of the main file are being parsed. <br>
+     * <br>
+     * Textures and flags of the texture file are loaded into a separate {@link TextureFile} and are merged
+     * after the main file is loaded, so shapes being loaded see the texture headers of the main file only
+     * and the loader thread doesn't write the fields of this object.
+     */
+    private void startTextureFileLoading(String filepath) {
+        String textureFilepath = this.getTextureFilePath(filepath);
+
+        this.textureFileLoading = new FutureTask<>(() -> this.loadTextureFile(textureFilepath));
 
-        try (FileInputStream fis = new FileInputStream(path)) {
-            data = fis.readAllBytes();
-            int startSectionIndex = ArrayUtils.indexOf(data, START_SECTION_BYTES);
-            if (startSectionIndex != -1) {
-                data = Arrays.copyOf(data, startSectionIndex);
+        Thread thread = new Thread(this.textureFileLoading, "SC texture loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return textures and flags of the texture file or null, if the file cannot be decompressed
+     */
+    private TextureFile loadTextureFile(String textureFilepath) throws LoadingFaultException, UnableToFindObjectException, UnsupportedCustomPropertyException, TextureFileNotFound {
+        TextureFile textureFile = new TextureFile(this.textureCount);
+
+        return this.loadInternal(textureFilepath, textureFile) ? textureFile : null;
+    }
+
+    private boolean awaitTextureFile(String filepath) throws LoadingFaultException, UnableToFindObjectException, UnsupportedCustomPropertyException, TextureFileNotFound {
+        TextureFile textureFile;
+        if (this.textureFileLoading == null) {
+            textureFile = this.loadTextureFile(this.getTextureFilePath(filepath));
+        } else {
+            textureFile = this.joinTextureFileLoading();
+        }
+
+        if (textureFile == null) return false;
+
+        for (int i = 0; i < textureFile.textures.length; i++) {
+            this.textures[i].setTextureFileData(textureFile.textures[i]);
+        }
+
+        if (textureFile.isHalfScalePossible) {
+            this.isHalfScalePossible = true;
+        }
+
+        return true;
+    }
+
+    private TextureFile joinTextureFileLoading() throws LoadingFaultException, UnableToFindObjectException, UnsupportedCustomPropertyException, TextureFileNotFound {
+        try {
+            return this.textureFileLoading.get();
+        } catch (InterruptedException exception) {
+            this.textureFileLoading.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new LoadingFaultException("Loading was interrupted: " + this.filename);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof LoadingFaultException loadingFaultException) {
+                throw loadingFaultException;
+            } else if (cause instanceof UnableToFindObjectException unableToFindObjectException) {
+                throw unableToFindObjectException;
+            } else if (cause instanceof UnsupportedCustomPropertyException unsupportedCustomPropertyException) {
+                throw unsupportedCustomPropertyException;
+            } else if (cause instanceof TextureFileNotFound textureFileNotFound) {
+                throw textureFileNotFound;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof Error error) {
+                throw error;
             }
+
+            throw new RuntimeException(cause);
+        } finally {
+            this.textureFileLoading = null;
+        }
+    }
+
+    /**
+     * Reads only the header, exports and texture headers of the file, without decoding objects and pixels.
+     * The texture file is never opened, the main file has dimensions of all textures. <br>
+     * <br>
+     * Decompression is stopped after the last texture header, because textures precede the other objects,
+     * so flags stored after the textures are not reported.
+     *
+     * @return summary of the file or null, if the file cannot be decompressed
+     */
+    public static FileSummary scan(String filepath) throws LoadingFaultException, TextureFileNotFound {
+        return scan(filepath, DecompressedFileCache.isEnabledByDefault());
+    }
+
+    /**
+     * Same as {@link #scan(String)}, but the decompressed file cache is used only if it is enabled.
+     */
+    public static FileSummary scan(String filepath, boolean isFileCacheEnabled) throws LoadingFaultException, TextureFileNotFound {
+        SupercellSWF swf = new SupercellSWF();
+        swf.isFileCacheEnabled = isFileCacheEnabled;
+        swf.path = Path.of(filepath);
+        swf.filename = swf.path.getFileName().toString();
+
+        DecompressionProgress progress = swf.openFile(filepath);
+        if (progress == null) return null;
+
+        try {
+            ByteStream stream = new ByteStream(progress.getData());
+            swf.loadHeader(stream, progress);
+
+            swf.textures = new SWFTexture[swf.textureCount];
+            ArrayUtils.fill(swf.textures, SWFTexture::new);
+
+            swf.scanTextures(stream, progress);
+        } finally {
+            progress.cancel();
+        }
+
+        List<FileSummary.TextureHeader> textures = new ArrayList<>(swf.textures.length);
+        for (SWFTexture texture : swf.textures) {
+            textures.add(new FileSummary.TextureHeader(texture.getTag(), texture.getType(), texture.getWidth(), texture.getHeight()));
+        }
+
+        ScMatrixBank matrixBank = swf.matrixBanks.get(0);
+        return new FileSummary(filepath, swf.shapeCount, swf.movieClipCount, swf.textFieldCount, matrixBank.getMatrixCount(), matrixBank.getColorTransformCount(), List.of(swf.exports), textures, swf.useExternalTexture);
+    }
+
+    /**
+     * @param textureFile texture file to load into or null, if the file is the main file
+     */
+    private boolean loadInternal(String path, TextureFile textureFile) throws LoadingFaultException, UnableToFindObjectException, UnsupportedCustomPropertyException, TextureFileNotFound {
+        DecompressionProgress progress = this.openFile(path);
+        if (progress == null) return false;
+
+        try {
+            return this.loadDecompressed(progress, textureFile, path);
+        } finally {
+            // Stops the decoder if loading has failed before reaching the end of the data
+            progress.cancel();
+        }
+    }
+
+    /**
+     * @return progress of the file decompression or null, if the file cannot be decompressed
+     */
+    private DecompressionProgress openFile(String path) throws TextureFileNotFound {
+        ByteBuffer data;
+
+        try {
+            data = BufferUtils.mapFile(Path.of(path));
         } catch (IOException e) {
             throw new TextureFileNotFound(path);
         }
 
-        byte[] decompressedData;
+        int startSectionIndex = BufferUtils.indexOf(data, START_SECTION_BYTES);
+        if (startSectionIndex != -1) {
+            data = data.slice(0, startSectionIndex);
+        }
+
+        DecompressedFileCache cache = this.isFileCacheEnabled ? DecompressedFileCache.getInstance() : null;
+        DecompressionProgress progress;
 
         try {
-            decompressedData = Decompressor.decompress(data);
+            if (this.isPipelinedLoading) {
+                progress = Decompressor.decompressPipelined(data, cache);
+            } else {
+                progress = DecompressionProgress.completed(Decompressor.decompress(data, cache));
+            }
         } catch (UnknownFileMagicException | UnknownFileVersionException |
                  IOException exception) {
             LOGGER.error("An error occurred while decompressing the file: {}", path, exception);
-            return false;
+            return null;
         }
 
-        ByteStream stream = new ByteStream(decompressedData);
+        if (cache != null) {
+            LOGGER.info("Opened {}, decompressed file cache: {} hits, {} misses", path, cache.getHitCount(), cache.getMissCount());
+        }
+
+        return progress;
+    }
 
-        if (isTextureFile) {
-            return this.loadTags(stream, true, path);
+    private boolean loadDecompressed(DecompressionProgress progress, TextureFile textureFile, String path) throws LoadingFaultException, UnableToFindObjectException, UnsupportedCustomPropertyException, TextureFileNotFound {
+        ByteStream stream = new ByteStream(progress.getData());
+
+        if (textureFile != null) {
+            return this.loadTags(stream, progress, textureFile, path);
         }
 
+        this.loadedData = progress.getData().slice().order(ByteOrder.LITTLE_ENDIAN);
+        this.loadHeader(stream, progress);
+
+        this.shapes = new ShapeOriginal[this.shapeCount];
+        ArrayUtils.fill(this.shapes, ShapeOriginal::new);
+
+        this.movieClips = new MovieClipOriginal[this.movieClipCount];
+        ArrayUtils.fill(this.movieClips, MovieClipOriginal::new);
+
+        this.textures = new SWFTexture[this.textureCount];
+        ArrayUtils.fill(this.textures, SWFTexture::new);
+
+        this.textFields = new TextFieldOriginal[this.textFieldCount];
+        ArrayUtils.fill(this.textFields, TextFieldOriginal::new);
+
+        if (this.loadTags(stream, progress, null, path)) {
+            this.indexObjects();
+            this.groupDrawBitmapsByTexture();
+
+            Runnable invalidateUsageGraph = this::invalidateUsageGraph;
+            for (MovieClipOriginal movieClip : this.movieClips) {
+                movieClip.setChildrenChangeListener(invalidateUsageGraph);
+            }
+
+            for (Export export : exports) {
+                MovieClipOriginal movieClip = this.getOriginalMovieClip(export.id() & 0xFFFF, export.name());
+                movieClip.setExportName(export.name());
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private void loadHeader(ByteStream stream, DecompressionProgress progress) throws LoadingFaultException {
+        this.awaitData(progress, stream.getPosition() + 17);
+
         this.shapeCount = stream.readShort();
         this.movieClipCount = stream.readShort();
         this.textureCount = stream.readShort();
@@ -114,12 +360,16 @@ public class SupercellSWF {
 
         stream.skip(5);
 
+        this.awaitData(progress, stream.getPosition() + 2);
         int exportCount = stream.readShort();
 
+        this.awaitData(progress, stream.getPosition() + exportCount * 2);
         short[] exportIds = stream.readShortArray(exportCount);
 
         String[] exportNames = new String[exportCount];
         for (int i = 0; i < exportCount; i++) {
+            this.awaitData(progress, stream.getPosition() + 1);
+            this.awaitData(progress, stream.getPosition() + 1 + (progress.getData().get(stream.getPosition()) & 0xFF));
             exportNames[i] = stream.readAscii();
         }
 
@@ -127,32 +377,62 @@ public class SupercellSWF {
         for (int i = 0; i < exports.length; i++) {
             exports[i] = new Export(exportIds[i], exportNames[i]);
         }
+    }
 
-        this.shapes = new ShapeOriginal[this.shapeCount];
-        ArrayUtils.fill(this.shapes, ShapeOriginal::new);
-
-        this.movieClips = new MovieClipOriginal[this.movieClipCount];
-        ArrayUtils.fill(this.movieClips, MovieClipOriginal::new);
+    private void scanTextures(ByteStream stream, DecompressionProgress progress) throws LoadingFaultException, TextureFileNotFound {
+        int loadedTextures = 0;
 
-        this.textures = new SWFTexture[this.textureCount];
-        ArrayUtils.fill(this.textures, SWFTexture::new);
+        while (loadedTextures < this.textureCount) {
+            this.awaitData(progress, stream.getPosition() + 5);
+            int tag = stream.readUnsignedChar();
+            int length = stream.readInt();
 
-        this.textFields = new TextFieldOriginal[this.textFieldCount];
-        ArrayUtils.fill(this.textFields, TextFieldOriginal::new);
+            if (length < 0) {
+                throw new NegativeTagLengthException(String.format("Negative tag length. Tag %d, %s", tag, this.filename));
+            }
 
-        if (this.loadTags(stream, false, path)) {
-            for (Export export : exports) {
-                MovieClipOriginal movieClip = this.getOriginalMovieClip(export.id() & 0xFFFF, export.name());
-                movieClip.setExportName(export.name());
+            int end = stream.getPosition() + length;
+            if (tag >= TAGS.length) {
+                stream.setPosition(end);
+                continue;
             }
 
-            return true;
-        }
+            Tag tagValue = TAGS[tag];
+            switch (tagValue) {
+                case EOF -> {
+                    return;
+                }
+                case TEXTURE, TEXTURE_2, TEXTURE_3, TEXTURE_4, TEXTURE_5, TEXTURE_6,
+                     TEXTURE_7, TEXTURE_8, KHRONOS_TEXTURE,
+                     COMPRESSED_KHRONOS_TEXTURE -> {
+                    // Pixels are skipped without waiting for them, only the compressed texture header is longer than 9 bytes
+                    this.awaitData(progress, tagValue == Tag.COMPRESSED_KHRONOS_TEXTURE ? end : Math.min(end, stream.getPosition() + 9));
 
-        return false;
+                    this.textures[loadedTextures].setIndex(loadedTextures);
+                    this.textures[loadedTextures++].load(stream, tagValue, false, this.path.getParent());
+                    stream.setPosition(end);
+                }
+                case HALF_SCALE_POSSIBLE -> this.isHalfScalePossible = true;
+                case USE_EXTERNAL_TEXTURE -> this.useExternalTexture = true;
+                case USE_UNCOMMON_RESOLUTION -> this.useUncommonResolution = true;
+                default -> {
+                    // The end of a tag without length is unknown
+                    if (length == 0 && !EMPTY_TAGS.contains(tagValue)) return;
+
+                    stream.setPosition(end);
+                }
+            }
+        }
     }
 
-    private boolean loadTags(ByteStream stream, boolean isTextureFile, String path) throws LoadingFaultException, UnsupportedCustomPropertyException, TextureFileNotFound {
+    /**
+     * @param textureFile texture file to load into or null, if the file is the main file.
+     *                    The texture file is loaded on its own thread, so its tags mustn't change the fields of this object
+     */
+    private boolean loadTags(ByteStream stream, DecompressionProgress progress, TextureFile textureFile, String path) throws LoadingFaultException, UnsupportedCustomPropertyException, TextureFileNotFound {
+        boolean isTextureFile = textureFile != null;
+        SWFTexture[] textures = isTextureFile ? textureFile.textures : this.textures;
+
         String highresSuffix = "_highres";
         String lowresSuffix = "_lowres";
 
@@ -167,7 +447,26 @@ public class SupercellSWF {
 
         int loadedMovieClipsModifiers = 0;
 
+        // Object tags are decoded after the whole file has been indexed
+        DeferredTags deferredTags = new DeferredTags();
+
+        // Chunks of deferred tags already decoding while the rest of the file is being decompressed
+        List<Future<Void>> pendingChunks = new ArrayList<>();
+        int pendingTagCount = 0;
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
         while (true) {
+            if (!progress.isDone() && pool.getParallelism() > 1 && deferredTags.size() - pendingTagCount >= PIPELINED_DEFERRED_TAGS_PER_CHUNK) {
+                DeferredTags chunk = deferredTags.copyRange(pendingTagCount, deferredTags.size());
+                pendingChunks.add(pool.submit(() -> {
+                    this.loadDeferredTags(stream.duplicate(), chunk, 0, chunk.size());
+                    return null;
+                }));
+                pendingTagCount = deferredTags.size();
+            }
+
+            this.awaitData(progress, stream.getPosition() + 5);
             int tag = stream.readUnsignedChar();
             int length = stream.readInt();
 
@@ -189,10 +488,23 @@ public class SupercellSWF {
             }
 
             Tag tagValue = Tag.values()[tag];
+            int tagStart = stream.getPosition() - TAG_HEADER_SIZE;
+            if (length > 0) {
+                this.awaitData(progress, stream.getPosition() + length);
+            } else if (!EMPTY_TAGS.contains(tagValue)) {
+                // The end of the tag is unknown
+                this.awaitData(progress, progress.getSize());
+            }
+
+            // Texture file flags precede the other tags, so the texture file is decompressed along with the objects
+            if (!isTextureFile && this.useExternalTexture && this.textureFileLoading == null && !TEXTURE_FILE_FLAG_TAGS.contains(tagValue)) {
+                this.startTextureFileLoading(path);
+            }
+
             switch (tagValue) {
                 case EOF -> {
                     if (isTextureFile) {
-                        if (loadedTextures != this.textureCount) {
+                        if (loadedTextures != textures.length) {
                             throw new LoadingFaultException(String.format("Texture count in .sc and _tex.sc doesn't match: %s", this.filename));
                         }
                     } else {
@@ -205,23 +517,34 @@ public class SupercellSWF {
                         }
                     }
 
+                    this.loadDeferredTags(stream, deferredTags, pendingTagCount, pendingChunks);
+
                     return true;
                 }
                 case TEXTURE, TEXTURE_2, TEXTURE_3, TEXTURE_4, TEXTURE_5, TEXTURE_6,
                      TEXTURE_7, TEXTURE_8, KHRONOS_TEXTURE,
                      COMPRESSED_KHRONOS_TEXTURE -> {
-                    if (loadedTextures >= this.textureCount) {
+                    if (loadedTextures >= textures.length) {
                         throw new TooManyObjectsException("Trying to load too many textures from ");
                     }
-                    this.textures[loadedTextures].setIndex(loadedTextures);
-                    this.textures[loadedTextures++].load(stream, tagValue, !this.useExternalTexture || isTextureFile, this.path.getParent());
+                    SWFTexture texture = textures[loadedTextures];
+                    texture.setIndex(loadedTextures++);
+                    texture.load(stream, tagValue, isTextureFile || !this.useExternalTexture, this.path.getParent());
+
+                    if (!isTextureFile && length > 0) {
+                        texture.setLoadedTagOffset(tagStart);
+                    }
+
+                    if (!this.isLazyTextureDecoding) {
+                        texture.startDecoding();
+                    }
                 }
                 case SHAPE, SHAPE_2 -> {
                     if (loadedShapes >= this.shapeCount) {
                         throw new TooManyObjectsException("Trying to load too many shapes from ");
                     }
 
-                    this.shapes[loadedShapes++].load(stream, tagValue, this::getTexture, filename);
+                    this.deferOrLoad(stream, length, tagValue, loadedShapes++, 0, deferredTags);
                 }
                 case MOVIE_CLIP, MOVIE_CLIP_2, MOVIE_CLIP_3, MOVIE_CLIP_4, MOVIE_CLIP_5,
                      MOVIE_CLIP_6 -> {
@@ -229,7 +552,7 @@ public class SupercellSWF {
                         throw new TooManyObjectsException("Trying to load too many MovieClips from ");
                     }
 
-                    this.movieClips[loadedMovieClips++].load(stream, tagValue, filename);
+                    this.deferOrLoad(stream, length, tagValue, loadedMovieClips++, 0, deferredTags);
                 }
                 case TEXT_FIELD, TEXT_FIELD_2, TEXT_FIELD_3, TEXT_FIELD_4, TEXT_FIELD_5,
                      TEXT_FIELD_6, TEXT_FIELD_7, TEXT_FIELD_8, TEXT_FIELD_9 -> {
@@ -237,12 +560,12 @@ public class SupercellSWF {
                         throw new TooManyObjectsException("Trying to load too many TextFields from ");
                     }
 
-                    this.textFields[loadedTextFields++].load(stream, tagValue, this::readFontName);
+                    this.deferOrLoad(stream, length, tagValue, loadedTextFields++, 0, deferredTags);
                 }
                 case MATRIX ->
-                    matrixBank.getMatrix(loadedMatrices++).load(stream, false);
+                    this.deferOrLoad(stream, length, tagValue, loadedMatrices++, this.matrixBanks.size() - 1, deferredTags);
                 case COLOR_TRANSFORM ->
-                    matrixBank.getColorTransform(loadedColorTransforms++).read(stream);
+                    this.deferOrLoad(stream, length, tagValue, loadedColorTransforms++, this.matrixBanks.size() - 1, deferredTags);
                 case TAG_TIMELINE_INDEXES -> {
                     try {
                         throw new UnsupportedTagException("TAG_TIMELINE_INDEXES no longer in use");
@@ -253,11 +576,33 @@ public class SupercellSWF {
                     int indicesLength = stream.readInt();
                     stream.skip(indicesLength);
                 }
-                case HALF_SCALE_POSSIBLE -> this.isHalfScalePossible = true;
-                case USE_EXTERNAL_TEXTURE -> this.useExternalTexture = true;
+                case HALF_SCALE_POSSIBLE -> {
+                    if (isTextureFile) {
+                        textureFile.isHalfScalePossible = true;
+                    } else {
+                        this.isHalfScalePossible = true;
+                    }
+                }
+                case USE_EXTERNAL_TEXTURE -> {
+                    // The texture file is already chosen, so the flag means nothing in the texture file itself
+                    if (!isTextureFile) {
+                        this.useExternalTexture = true;
+                    }
+                }
                 case USE_UNCOMMON_RESOLUTION -> {
+                    if (isTextureFile) {
+                        textureFile.isHalfScalePossible = true;
+                        continue;
+                    }
+
                     this.useUncommonResolution = true;
 
+                    // The flag came after other tags, so the texture file of the common resolution has been started
+                    if (this.textureFileLoading != null) {
+                        this.textureFileLoading.cancel(true);
+                        this.textureFileLoading = null;
+                    }
+
                     String withoutExtension = path.substring(0, path.length() - 3);
                     String highresPath = withoutExtension + highresSuffix + TEXTURE_EXTENSION;
                     String lowresPath = withoutExtension + lowresSuffix + TEXTURE_EXTENSION;
@@ -277,14 +622,20 @@ public class SupercellSWF {
                     lowresSuffix = stream.readAscii();
                 }
                 case MATRIX_PRECISE ->
-                    matrixBank.getMatrix(loadedMatrices++).load(stream, true);
+                    this.deferOrLoad(stream, length, tagValue, loadedMatrices++, this.matrixBanks.size() - 1, deferredTags);
                 case MOVIE_CLIP_MODIFIERS -> {
                     int movieClipModifierCount = stream.readShort();
                     this.movieClipModifiers = new MovieClipModifierOriginal[movieClipModifierCount];
                     ArrayUtils.fill(this.movieClipModifiers, MovieClipModifierOriginal::new);
                 }
-                case MODIFIER_STATE_2, MODIFIER_STATE_3, MODIFIER_STATE_4 ->
-                    this.movieClipModifiers[loadedMovieClipsModifiers++].load(stream, tagValue);
+                case MODIFIER_STATE_2, MODIFIER_STATE_3, MODIFIER_STATE_4 -> {
+                    MovieClipModifierOriginal modifier = this.movieClipModifiers[loadedMovieClipsModifiers++];
+                    modifier.load(stream, tagValue);
+
+                    if (length > 0) {
+                        modifier.setLoadedTagOffset(tagStart);
+                    }
+                }
                 case EXTRA_MATRIX_BANK -> {
                     int matrixCount = stream.readShort();
                     int colorTransformCount = stream.readShort();
@@ -313,35 +664,212 @@ public class SupercellSWF {
         }
     }
 
-    public void save(String path) {
-        this.saveInternal(path, false);
-        // Add an option "Save textures as external files" when saving the whole project
+    /**
+     * Skips the tag and remembers its offset for {@link #loadDeferredTags(ByteStream, DeferredTags)}.
+     * Tags without length are loaded immediately, because their end is unknown.
+     */
+    private void deferOrLoad(ByteStream stream, int length, Tag tag, int index, int matrixBankIndex, DeferredTags deferredTags) throws LoadingFaultException, UnsupportedCustomPropertyException {
+        if (length == 0) {
+            this.loadTag(stream, tag, index, matrixBankIndex);
+            return;
+        }
+
+        this.setLoadedTagOffset(tag, index, matrixBankIndex, stream.getPosition() - TAG_HEADER_SIZE);
+
+        deferredTags.add(tag, index, matrixBankIndex, stream.getPosition());
+        stream.skip(length);
     }
 
-    private void saveInternal(String path, boolean isTextureFile) {
-        ByteStream stream = new ByteStream();
+    /**
+     * Remembers where the tag of the object starts, so the object is saved by copying the tag until it is modified.
+     * Only tags with length are remembered, the end of the others is known only after loading them.
+     */
+    private void setLoadedTagOffset(Tag tag, int index, int matrixBankIndex, int offset) {
+        switch (tag) {
+            case SHAPE, SHAPE_2 -> this.shapes[index].setLoadedTagOffset(offset);
+            case MOVIE_CLIP, MOVIE_CLIP_2, MOVIE_CLIP_3, MOVIE_CLIP_4, MOVIE_CLIP_5,
+                 MOVIE_CLIP_6 -> this.movieClips[index].setLoadedTagOffset(offset);
+            case TEXT_FIELD, TEXT_FIELD_2, TEXT_FIELD_3, TEXT_FIELD_4, TEXT_FIELD_5,
+                 TEXT_FIELD_6, TEXT_FIELD_7, TEXT_FIELD_8, TEXT_FIELD_9 -> this.textFields[index].setLoadedTagOffset(offset);
+            case MATRIX, MATRIX_PRECISE -> this.matrixBanks.get(matrixBankIndex).setLoadedMatrixTagOffset(index, offset);
+            case COLOR_TRANSFORM -> this.matrixBanks.get(matrixBankIndex).setLoadedColorTransformTagOffset(index, offset);
+            default -> throw new IllegalArgumentException("Tag cannot be deferred: " + tag);
+        }
+    }
 
-        if (!isTextureFile) {
-            saveObjectsInfo(stream);
+    /**
+     * Decodes independent object tags in parallel, each chunk reads the data with its own stream.
+     *
+     * @param from          index of the first deferred tag which isn't loaded by the pending chunks
+     * @param pendingChunks chunks submitted while the file was being indexed
+     */
+    private void loadDeferredTags(ByteStream stream, DeferredTags deferredTags, int from, List<Future<Void>> pendingChunks) throws LoadingFaultException, UnsupportedCustomPropertyException {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        int tagCount = deferredTags.size() - from;
+        int chunkCount = Math.min(pool.getParallelism() * 4, (tagCount + MIN_DEFERRED_TAGS_PER_CHUNK - 1) / MIN_DEFERRED_TAGS_PER_CHUNK);
+        if (pendingChunks.isEmpty() && (chunkCount <= 1 || pool.getParallelism() <= 1)) {
+            this.loadDeferredTags(stream.duplicate(), deferredTags, from, deferredTags.size());
+            return;
         }
 
-        this.saveTags(stream);
+        List<Callable<Void>> chunks = new ArrayList<>(chunkCount);
+        for (int i = 0; i < chunkCount; i++) {
+            int chunkFrom = from + (int) ((long) tagCount * i / chunkCount);
+            int chunkTo = from + (int) ((long) tagCount * (i + 1) / chunkCount);
 
-        byte[] data = stream.getData();
+            chunks.add(() -> {
+                this.loadDeferredTags(stream.duplicate(), deferredTags, chunkFrom, chunkTo);
+                return null;
+            });
+        }
 
         try {
-            data = Compressor.compress(data, 4);
-        } catch (IOException | UnknownFileVersionException e) {
-            throw new RuntimeException(e);
+            List<Future<Void>> futures = new ArrayList<>(pendingChunks);
+            futures.addAll(pool.invokeAll(chunks));
+
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new LoadingFaultException("Loading was interrupted: " + this.filename);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof LoadingFaultException loadingFaultException) {
+                throw loadingFaultException;
+            } else if (cause instanceof UnsupportedCustomPropertyException unsupportedCustomPropertyException) {
+                throw unsupportedCustomPropertyException;
+            } else if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+
+            throw new RuntimeException(cause);
         }
+    }
 
-        File file = new File(path);
+    private void loadDeferredTags(ByteStream stream, DeferredTags deferredTags, int from, int to) throws LoadingFaultException, UnsupportedCustomPropertyException {
+        for (int i = from; i < to; i++) {
+            stream.setPosition(deferredTags.offsets[i]);
+            this.loadTag(stream, TAGS[deferredTags.tags[i]], deferredTags.indices[i], deferredTags.matrixBankIndices[i]);
+        }
+    }
 
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            fos.write(data);
+    /**
+     * Blocks until the decompressed data up to the end offset can be read.
+     */
+    private void awaitData(DecompressionProgress progress, int end) throws LoadingFaultException {
+        try {
+            progress.awaitAvailable(end);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new LoadingFaultException("Loading was interrupted: " + this.filename);
         } catch (IOException exception) {
+            throw new LoadingFaultException("An error occurred while decompressing the file: " + this.filename, exception);
+        }
+    }
+
+    private void loadTag(ByteStream stream, Tag tag, int index, int matrixBankIndex) throws LoadingFaultException, UnsupportedCustomPropertyException {
+        switch (tag) {
+            case SHAPE, SHAPE_2 ->
+                this.shapes[index].load(stream, tag, this::getTexture, this.filename);
+            case MOVIE_CLIP, MOVIE_CLIP_2, MOVIE_CLIP_3, MOVIE_CLIP_4, MOVIE_CLIP_5,
+                 MOVIE_CLIP_6 ->
+                this.movieClips[index].load(stream, tag, this.filename);
+            case TEXT_FIELD, TEXT_FIELD_2, TEXT_FIELD_3, TEXT_FIELD_4, TEXT_FIELD_5,
+                 TEXT_FIELD_6, TEXT_FIELD_7, TEXT_FIELD_8, TEXT_FIELD_9 ->
+                this.textFields[index].load(stream, tag, this::readFontName);
+            case MATRIX ->
+                this.matrixBanks.get(matrixBankIndex).loadMatrix(index, stream, false);
+            case MATRIX_PRECISE ->
+                this.matrixBanks.get(matrixBankIndex).loadMatrix(index, stream, true);
+            case COLOR_TRANSFORM ->
+                this.matrixBanks.get(matrixBankIndex).loadColorTransform(index, stream);
+            default ->
+                throw new IllegalArgumentException("Tag cannot be deferred: " + tag);
+        }
+    }
+
+    public void save(String path) {
+        this.save(path, CompressionSettings.RELEASE);
+    }
+
+    /**
+     * @return sizes and time spent on saving or null, if the file cannot be written
+     */
+    public SaveResult save(String path, CompressionSettings settings) {
+        return this.saveInternal(path, false, settings);
+        // Add an option "Save textures as external files" when saving the whole project
+    }
+
+    /**
+     * Writes the objects twice: first to measure the size and the hash of the data, which are stored
+     * before the data in the file header, then into the compressor which writes straight into the file. <br>
+     * <br>
+     * The file is written into a temporary file next to it first, so a failed save doesn't destroy the original.
+     */
+    private SaveResult saveInternal(String path, boolean isTextureFile, CompressionSettings settings) {
+        long startTime = System.nanoTime();
+
+        Path file = Path.of(path);
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+
+        long dataSize;
+        long compressedSize;
+
+        try {
+            byte[] hash;
+            try (CodecContext context = CodecContext.acquire()) {
+                MessageDigest md5 = context.getMd5();
+
+                ByteStream measuringStream = new ByteStream(new DigestOutputStream(OutputStream.nullOutputStream(), md5));
+                this.saveData(measuringStream, isTextureFile);
+                measuringStream.flush();
+
+                dataSize = measuringStream.getWrittenSize();
+                hash = md5.digest();
+            }
+
+            if (dataSize > Integer.MAX_VALUE) {
+                throw new IOException("File is too large: " + dataSize + " bytes");
+            }
+
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                try (OutputStream output = Compressor.compress(channel, (int) dataSize, hash, settings)) {
+                    ByteStream stream = new ByteStream(output);
+                    this.saveData(stream, isTextureFile);
+                    stream.flush();
+                }
+
+                compressedSize = channel.size();
+            }
+
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | UncheckedIOException exception) {
             LOGGER.error("An error occurred while saving the file: {}", path, exception);
+
+            try {
+                Files.deleteIfExists(temporaryFile);
+            } catch (IOException deleteException) {
+                exception.addSuppressed(deleteException);
+            }
+
+            return null;
         }
+
+        SaveResult result = new SaveResult(settings.codec(), (int) dataSize, (int) compressedSize, (System.nanoTime() - startTime) / 1_000_000);
+        LOGGER.info("Saved {} with {} in {} ms: {} -> {} bytes", path, result.codec(), result.timeMillis(), result.uncompressedSize(), result.compressedSize());
+        return result;
+    }
+
+    private void saveData(ByteStream stream, boolean isTextureFile) {
+        if (!isTextureFile) {
+            saveObjectsInfo(stream);
+        }
+
+        this.saveTags(stream);
     }
 
     private void saveObjectsInfo(ByteStream stream) {
@@ -364,97 +892,95 @@ public class SupercellSWF {
         }
     }
 
+    /**
+     * Copies the loaded tags of unmodified objects, only modified and new objects are serialized again.
+     */
     private void saveTags(ByteStream stream) {
-        List<Savable> savables = this.getSavableObjects();
-
-        for (Savable object : savables) {
-            stream.writeBlock(object.getTag(), object::save);
+        if (this.isHalfScalePossible()) {
+            stream.writeBlock(Tag.HALF_SCALE_POSSIBLE, (ignored) -> {});
         }
 
-        stream.writeBlock(Tag.EOF, (ignored) -> {});
-    }
+        if (this.useExternalTexture) {
+            stream.writeBlock(Tag.USE_EXTERNAL_TEXTURE, (ignored) -> {});
+        }
 
-    private List<Savable> getSavableObjects() {
-        List<Savable> objects = new ArrayList<>();
+        this.saveObjects(stream, this.textures);
+        this.saveObjects(stream, this.shapes);
 
-        if (this.isHalfScalePossible()) {
-            objects.add(new Savable() {
-                @Override
-                public void save(ByteStream stream) {
+        for (int i = 0; i < this.matrixBanks.size(); i++) {
+            ScMatrixBank matrixBank = this.matrixBanks.get(i);
 
-                }
+            if (i != 0) {
+                stream.writeBlock(Tag.EXTRA_MATRIX_BANK, (blockStream) -> {
+                    blockStream.writeShort(matrixBank.getMatrixCount());
+                    blockStream.writeShort(matrixBank.getColorTransformCount());
+                });
+            }
 
-                @Override
-                public Tag getTag() {
-                    return Tag.HALF_SCALE_POSSIBLE;
-                }
-            });
+            this.saveMatrixBank(stream, matrixBank);
         }
 
-        if (this.useExternalTexture) {
-            objects.add(new Savable() {
-                @Override
-                public void save(ByteStream stream) {
+        this.saveObjects(stream, this.textFields);
+        this.saveObjects(stream, this.movieClips);
 
-                }
+        if (this.movieClipModifiers != null && this.movieClipModifiers.length > 0) {
+            stream.writeBlock(Tag.MOVIE_CLIP_MODIFIERS, (blockStream) -> blockStream.writeShort(this.movieClipModifiers.length));
 
-                @Override
-                public Tag getTag() {
-                    return Tag.USE_EXTERNAL_TEXTURE;
-                }
-            });
+            this.saveObjects(stream, this.movieClipModifiers);
         }
 
-        objects.addAll(List.of(this.textures));
-        objects.addAll(List.of(this.shapes));
-        for (int i = 0; i < this.matrixBanks.size(); i++) {
-            ScMatrixBank matrixBank = this.matrixBanks.get(i);
-
-            if (i != 0) {
-                objects.add(new Savable() {
-                    @Override
-                    public void save(ByteStream stream) {
-                        stream.writeShort(matrixBank.getMatrixCount());
-                        stream.writeShort(matrixBank.getColorTransformCount());
-                    }
+        stream.writeBlock(Tag.EOF, (ignored) -> {});
+    }
 
-                    @Override
-                    public Tag getTag() {
-                        return Tag.EXTRA_MATRIX_BANK;
-                    }
-                });
+    private void saveObjects(ByteStream stream, Savable[] objects) {
+        for (Savable object : objects) {
+            int loadedTagOffset = object.getLoadedTagOffset();
+            if (loadedTagOffset != -1) {
+                this.copyLoadedTag(stream, loadedTagOffset);
+                continue;
             }
 
-            objects.addAll(matrixBank.getMatrices());
-            objects.addAll(matrixBank.getColorTransforms());
+            stream.writeBlock(object.getTag(), object::save);
         }
-        objects.addAll(List.of(this.textFields));
-        objects.addAll(List.of(this.movieClips));
+    }
 
-        if (this.movieClipModifiers != null && this.movieClipModifiers.length > 0) {
-            objects.add(new Savable() {
-                @Override
-                public void save(ByteStream stream) {
-                    stream.writeShort(movieClipModifiers.length);
-                }
+    /**
+     * Writes the values from the bank arrays, reusing one matrix and color transform for the values which aren't loaded.
+     */
+    private void saveMatrixBank(ByteStream stream, ScMatrixBank matrixBank) {
+        Matrix2x3 matrix = new Matrix2x3();
+        for (int i = 0; i < matrixBank.getMatrixCount(); i++) {
+            int loadedTagOffset = matrixBank.getLoadedMatrixTagOffset(i);
+            if (loadedTagOffset != -1) {
+                this.copyLoadedTag(stream, loadedTagOffset);
+                continue;
+            }
 
-                @Override
-                public Tag getTag() {
-                    return Tag.MOVIE_CLIP_MODIFIERS;
-                }
-            });
+            matrixBank.copyMatrix(i, matrix);
+            stream.writeBlock(matrix.getTag(), matrix::save);
+        }
+
+        ColorTransform colorTransform = new ColorTransform();
+        for (int i = 0; i < matrixBank.getColorTransformCount(); i++) {
+            int loadedTagOffset = matrixBank.getLoadedColorTransformTagOffset(i);
+            if (loadedTagOffset != -1) {
+                this.copyLoadedTag(stream, loadedTagOffset);
+                continue;
+            }
 
-            objects.addAll(List.of(this.movieClipModifiers));
+            matrixBank.copyColorTransform(i, colorTransform);
+            stream.writeBlock(colorTransform.getTag(), colorTransform::save);
         }
+    }
 
-        return objects;
+    private void copyLoadedTag(ByteStream stream, int offset) {
+        int length = this.loadedData.getInt(offset + 1);
+        stream.write(this.loadedData, offset, TAG_HEADER_SIZE + length);
     }
 
     public MovieClipOriginal getOriginalMovieClip(int id, String name) throws UnableToFindObjectException {
-        for (MovieClipOriginal movieClip : this.movieClips) {
-            if (movieClip.getId() == id) {
-                return movieClip;
-            }
+        if (this.movieClipIndex.get(id) instanceof MovieClipOriginal movieClip) {
+            return movieClip;
         }
 
         String message = String.format("Unable to find some MovieClip id from %s", this.filename);
@@ -466,42 +992,75 @@ public class SupercellSWF {
     }
 
     public DisplayObjectOriginal getOriginalDisplayObject(int id, String name) throws UnableToFindObjectException {
-        for (ShapeOriginal shape : this.shapes) {
-            if (shape.getId() == id) {
-                return shape;
-            }
+        DisplayObjectOriginal displayObject = this.objectIndex.get(id);
+        if (displayObject != null) {
+            return displayObject;
         }
 
+        String message = String.format("Unable to find some DisplayObject id %d, %s", id, this.filename);
+        if (name != null) {
+            message += String.format(" needed by export name %s", name);
+        }
+
+        throw new UnableToFindObjectException(message);
+    }
+
+    /**
+     * Fills the id indices. If several objects have the same id, the first one is kept
+     * in order: shapes, movie clips, text fields, movie clip modifiers.
+     * The movie clip index keeps the first movie clip with the id.
+     */
+    private void indexObjects() {
+        this.objectIndex.clear();
+        this.movieClipIndex.clear();
+
         for (MovieClipOriginal movieClip : this.movieClips) {
-            if (movieClip.getId() == id) {
-                return movieClip;
-            }
+            this.movieClipIndex.add(movieClip);
         }
 
-        for (TextFieldOriginal textField : textFields) {
-            if (textField.getId() == id) {
-                return textField;
-            }
+        indexObjects(this.shapes);
+        indexObjects(this.movieClips);
+        indexObjects(this.textFields);
+        if (this.movieClipModifiers != null) {
+            indexObjects(this.movieClipModifiers);
         }
+    }
 
-        for (MovieClipModifierOriginal movieClipModifier : movieClipModifiers) {
-            if (movieClipModifier.getId() == id) {
-                return movieClipModifier;
+    private void indexObjects(DisplayObjectOriginal[] objects) {
+        for (DisplayObjectOriginal object : objects) {
+            if (!this.objectIndex.add(object)) {
+                LOGGER.warn("Display object id {} is used more than once in {}", object.getId(), this.filename);
             }
         }
+    }
 
-        String message = String.format("Unable to find some DisplayObject id %d, %s", id, this.filename);
-        if (name != null) {
-            message += String.format(" needed by export name %s", name);
+    /**
+     * @return reverse dependencies of the loaded objects and textures, reflecting the edits made since loading
+     */
+    public synchronized UsageGraph getUsageGraph() {
+        if (this.usageGraph == null && this.movieClips != null) {
+            this.usageGraph = UsageGraph.build(this.shapes, this.movieClips, this.textures.length, this.objectIndex.getMaxId());
         }
 
-        throw new UnableToFindObjectException(message);
+        return this.usageGraph;
+    }
+
+    private synchronized void invalidateUsageGraph() {
+        this.usageGraph = null;
+    }
+
+    public Export[] getExports() {
+        return exports;
     }
 
     public int getMovieClipCount() {
         return this.movieClips.length;
     }
 
+    public MovieClipOriginal getMovieClip(int index) {
+        return this.movieClips[index];
+    }
+
     public int getTextureCount() {
         return this.textures.length;
     }
@@ -537,7 +1096,7 @@ public class SupercellSWF {
         return path;
     }
 
-    public String readFontName(ByteStream stream) {
+    public synchronized String readFontName(ByteStream stream) {
         String fontName = stream.readAscii();
         if (fontName != null) {
             if (!this.fontsNames.contains(fontName)) {
@@ -552,19 +1111,120 @@ public class SupercellSWF {
         return isHalfScalePossible;
     }
 
+    public boolean isPipelinedLoading() {
+        return isPipelinedLoading;
+    }
+
+    /**
+     * @param pipelinedLoading whether tags are parsed while the rest of the file is still being decompressed
+     */
+    public void setPipelinedLoading(boolean pipelinedLoading) {
+        this.isPipelinedLoading = pipelinedLoading;
+    }
+
+    public boolean isLazyTextureDecoding() {
+        return isLazyTextureDecoding;
+    }
+
+    /**
+     * @param lazyTextureDecoding whether textures are decoded only when their data is requested
+     *                            instead of right after loading
+     */
+    public void setLazyTextureDecoding(boolean lazyTextureDecoding) {
+        this.isLazyTextureDecoding = lazyTextureDecoding;
+    }
+
+    public boolean isFileCacheEnabled() {
+        return isFileCacheEnabled;
+    }
+
+    /**
+     * @param fileCacheEnabled whether decompressed files are looked up in and stored to {@link DecompressedFileCache}
+     */
+    public void setFileCacheEnabled(boolean fileCacheEnabled) {
+        this.isFileCacheEnabled = fileCacheEnabled;
+    }
+
     public List<ShapeDrawBitmapCommand> getDrawBitmapsOfTexture(int textureIndex) {
-        List<ShapeDrawBitmapCommand> bitmapCommands = new ArrayList<>();
+        return this.textureDrawBitmaps.get(textureIndex);
+    }
+
+    private void groupDrawBitmapsByTexture() {
+        List<Set<ShapeDrawBitmapCommand>> commandSets = new ArrayList<>(this.textures.length);
+        for (int i = 0; i < this.textures.length; i++) {
+            commandSets.add(new LinkedHashSet<>());
+        }
 
         for (ShapeOriginal shape : this.shapes) {
             for (ShapeDrawBitmapCommand command : shape.getCommands()) {
-                if (command.getTextureIndex() == textureIndex) {
-                    if (!bitmapCommands.contains(command)) {
-                        bitmapCommands.add(command);
-                    }
+                if (command.getTextureIndex() < commandSets.size()) {
+                    commandSets.get(command.getTextureIndex()).add(command);
                 }
             }
         }
 
-        return bitmapCommands;
+        List<List<ShapeDrawBitmapCommand>> textureDrawBitmaps = new ArrayList<>(commandSets.size());
+        for (Set<ShapeDrawBitmapCommand> commands : commandSets) {
+            textureDrawBitmaps.add(List.copyOf(commands));
+        }
+
+        this.textureDrawBitmaps = textureDrawBitmaps;
+    }
+
+    /**
+     * Textures and flags of a texture file, filled by the texture loader thread and merged after it is joined.
+     */
+    private static final class TextureFile {
+        private final SWFTexture[] textures;
+        private boolean isHalfScalePossible;
+
+        private TextureFile(int textureCount) {
+            this.textures = new SWFTexture[textureCount];
+            ArrayUtils.fill(this.textures, SWFTexture::new);
+        }
+    }
+
+    /**
+     * Offsets of object tags and their targets, stored in primitive arrays to keep indexing allocation-free.
+     */
+    private static final class DeferredTags {
+        private byte[] tags = new byte[256];
+        private int[] indices = new int[256];
+        private int[] matrixBankIndices = new int[256];
+        private int[] offsets = new int[256];
+        private int size;
+
+        private void add(Tag tag, int index, int matrixBankIndex, int offset) {
+            if (this.size == this.offsets.length) {
+                int newLength = this.size + (this.size >> 1);
+                this.tags = Arrays.copyOf(this.tags, newLength);
+                this.indices = Arrays.copyOf(this.indices, newLength);
+                this.matrixBankIndices = Arrays.copyOf(this.matrixBankIndices, newLength);
+                this.offsets = Arrays.copyOf(this.offsets, newLength);
+            }
+
+            this.tags[this.size] = (byte) tag.ordinal();
+            this.indices[this.size] = index;
+            this.matrixBankIndices[this.size] = matrixBankIndex;
+            this.offsets[this.size] = offset;
+            this.size++;
+        }
+
+        private int size() {
+            return this.size;
+        }
+
+        /**
+         * @return copy of the tags from the range, which isn't affected by further additions
+         */
+        private DeferredTags copyRange(int from, int to) {
+            DeferredTags copy = new DeferredTags();
+            copy.tags = Arrays.copyOfRange(this.tags, from, to);
+            copy.indices = Arrays.copyOfRange(this.indices, from, to);
+            copy.matrixBankIndices = Arrays.copyOfRange(this.matrixBankIndices, from, to);
+            copy.offsets = Arrays.copyOfRange(this.offsets, from, to);
+            copy.size = to - from;
+            return copy;
+        }
     }
 }
@@ -0,0 +1,189 @@
+package com.vorono4ka.swf;
+
+import com.vorono4ka.swf.originalObjects.MovieClipOriginal;
+import com.vorono4ka.swf.originalObjects.ShapeDrawBitmapCommand;
+import com.vorono4ka.swf.originalObjects.ShapeOriginal;
+
+import java.util.Arrays;
+
+/**
+ * Reverse dependencies of display objects and textures. <br>
+ * <br>
+ * Adjacency lists are stored in compressed sparse row layout: users of node {@code n}
+ * are {@code users[offsets[n]]} to {@code users[offsets[n + 1]]}, without duplicates.
+ */
+public class UsageGraph {
+    // Display object id -> ids of MovieClips having it as a child
+    private final int[] parentOffsets;
+    private final int[] parents;
+
+    // Texture index -> ids of shapes drawing it
+    private final int[] textureUserOffsets;
+    private final int[] textureUsers;
+
+    // Shape id -> texture indices
+    private final int[] shapeTextureOffsets;
+    private final int[] shapeTextures;
+
+    private UsageGraph(int[] parentOffsets, int[] parents, int[] textureUserOffsets, int[] textureUsers, int[] shapeTextureOffsets, int[] shapeTextures) {
+        this.parentOffsets = parentOffsets;
+        this.parents = parents;
+        this.textureUserOffsets = textureUserOffsets;
+        this.textureUsers = textureUsers;
+        this.shapeTextureOffsets = shapeTextureOffsets;
+        this.shapeTextures = shapeTextures;
+    }
+
+    public static UsageGraph build(ShapeOriginal[] shapes, MovieClipOriginal[] movieClips, int textureCount, int maxObjectId) {
+        int nodeCount = maxObjectId + 1;
+
+        // Marks the last owner which added an edge to the node, so repeated edges are skipped
+        int[] lastOwners = new int[Math.max(nodeCount, textureCount)];
+
+        int[] parentOffsets = new int[nodeCount + 1];
+        Arrays.fill(lastOwners, -1);
+        for (MovieClipOriginal movieClip : movieClips) {
+            for (short childId : movieClip.getChildrenIds()) {
+                int child = childId & 0xFFFF;
+                if (child >= nodeCount || lastOwners[child] == movieClip.getId()) continue;
+
+                lastOwners[child] = movieClip.getId();
+                parentOffsets[child + 1]++;
+            }
+        }
+
+        int[] parents = new int[prefixSum(parentOffsets)];
+        int[] parentPositions = Arrays.copyOf(parentOffsets, nodeCount);
+        Arrays.fill(lastOwners, -1);
+        for (MovieClipOriginal movieClip : movieClips) {
+            for (short childId : movieClip.getChildrenIds()) {
+                int child = childId & 0xFFFF;
+                if (child >= nodeCount || lastOwners[child] == movieClip.getId()) continue;
+
+                lastOwners[child] = movieClip.getId();
+                parents[parentPositions[child]++] = movieClip.getId();
+            }
+        }
+
+        int[] textureUserOffsets = new int[textureCount + 1];
+        int[] shapeTextureOffsets = new int[nodeCount + 1];
+        Arrays.fill(lastOwners, -1);
+        for (ShapeOriginal shape : shapes) {
+            for (ShapeDrawBitmapCommand command : shape.getCommands()) {
+                int textureIndex = command.getTextureIndex();
+                if (textureIndex >= textureCount || lastOwners[textureIndex] == shape.getId()) continue;
+
+                lastOwners[textureIndex] = shape.getId();
+                textureUserOffsets[textureIndex + 1]++;
+                shapeTextureOffsets[shape.getId() + 1]++;
+            }
+        }
+
+        int[] textureUsers = new int[prefixSum(textureUserOffsets)];
+        int[] shapeTextures = new int[prefixSum(shapeTextureOffsets)];
+        int[] textureUserPositions = Arrays.copyOf(textureUserOffsets, textureCount);
+        int[] shapeTexturePositions = Arrays.copyOf(shapeTextureOffsets, nodeCount);
+        Arrays.fill(lastOwners, -1);
+        for (ShapeOriginal shape : shapes) {
+            for (ShapeDrawBitmapCommand command : shape.getCommands()) {
+                int textureIndex = command.getTextureIndex();
+                if (textureIndex >= textureCount || lastOwners[textureIndex] == shape.getId()) continue;
+
+                lastOwners[textureIndex] = shape.getId();
+                textureUsers[textureUserPositions[textureIndex]++] = shape.getId();
+                shapeTextures[shapeTexturePositions[shape.getId()]++] = textureIndex;
+            }
+        }
+
+        return new UsageGraph(parentOffsets, parents, textureUserOffsets, textureUsers, shapeTextureOffsets, shapeTextures);
+    }
+
+    /**
+     * @return ids of MovieClips having the object as a direct child
+     */
+    public int[] getParents(int id) {
+        return slice(this.parentOffsets, this.parents, id);
+    }
+
+    /**
+     * @return ids of all MovieClips containing the object at any depth
+     */
+    public int[] getAllParents(int id) {
+        int nodeCount = this.parentOffsets.length - 1;
+        if (id < 0 || id >= nodeCount) return new int[0];
+
+        return this.collectAncestors(new int[]{id}, new boolean[nodeCount]);
+    }
+
+    /**
+     * @return ids of shapes drawing the texture
+     */
+    public int[] getTextureUsers(int textureIndex) {
+        return slice(this.textureUserOffsets, this.textureUsers, textureIndex);
+    }
+
+    /**
+     * @return ids of shapes drawing the texture and of all MovieClips containing these shapes
+     */
+    public int[] getAllTextureUsers(int textureIndex) {
+        int[] shapeIds = this.getTextureUsers(textureIndex);
+        int[] movieClipIds = this.collectAncestors(shapeIds, new boolean[this.parentOffsets.length - 1]);
+
+        int[] users = Arrays.copyOf(shapeIds, shapeIds.length + movieClipIds.length);
+        System.arraycopy(movieClipIds, 0, users, shapeIds.length, movieClipIds.length);
+        return users;
+    }
+
+    /**
+     * @return indices of textures drawn by the shape
+     */
+    public int[] getShapeTextures(int shapeId) {
+        return slice(this.shapeTextureOffsets, this.shapeTextures, shapeId);
+    }
+
+    /**
+     * Breadth-first search over the parents. Start ids are not included in the result.
+     */
+    private int[] collectAncestors(int[] startIds, boolean[] visited) {
+        int[] queue = Arrays.copyOf(startIds, Math.max(16, startIds.length * 2));
+        int head = 0;
+        int tail = startIds.length;
+
+        for (int id : startIds) {
+            visited[id] = true;
+        }
+
+        while (head < tail) {
+            int id = queue[head++];
+            for (int i = this.parentOffsets[id]; i < this.parentOffsets[id + 1]; i++) {
+                int parent = this.parents[i];
+                if (visited[parent]) continue;
+
+                visited[parent] = true;
+                if (tail == queue.length) queue = Arrays.copyOf(queue, tail * 2);
+                queue[tail++] = parent;
+            }
+        }
+
+        return Arrays.copyOfRange(queue, startIds.length, tail);
+    }
+
+    private static int[] slice(int[] offsets, int[] values, int node) {
+        if (node < 0 || node >= offsets.length - 1) return new int[0];
+
+        return Arrays.copyOfRange(values, offsets[node], offsets[node + 1]);
+    }
+
+    /**
+     * Turns counts stored at {@code offsets[n + 1]} into offsets.
+     *
+     * @return total count
+     */
+    private static int prefixSum(int[] offsets) {
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        return offsets[offsets.length - 1];
+    }
+}
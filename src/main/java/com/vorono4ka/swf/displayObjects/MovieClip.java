@@ -1,5 +1,6 @@
 package com.vorono4ka.swf.displayObjects;
 
+import com.vorono4ka.math.Rect;
 import com.vorono4ka.swf.*;
 import com.vorono4ka.swf.constants.MovieClipState;
 import com.vorono4ka.swf.exceptions.UnableToFindObjectException;
@@ -31,12 +32,14 @@ public class MovieClip extends Sprite {
         movieClip.matrixBank = swf.getMatrixBank(original.getMatrixBankIndex());
 
         DisplayObjectOriginal[] children = original.getChildren();
+        byte[] childrenBlends = original.getChildrenBlends();
+        Rect scalingGrid = original.getScalingGrid();
         DisplayObject[] childrenArray = new DisplayObject[original.getChildrenCount()];
         for (int i = 0; i < childrenArray.length; i++) {
             DisplayObjectOriginal child = children[i];
-            DisplayObject displayObject = DisplayObjectFactory.createFromOriginal(child, swf, original.getScalingGrid());
+            DisplayObject displayObject = DisplayObjectFactory.createFromOriginal(child, swf, scalingGrid);
 
-            displayObject.setVisibleRecursive((original.getChildrenBlends()[i] & 64) == 0);
+            displayObject.setVisibleRecursive((childrenBlends[i] & 64) == 0);
             displayObject.setInteractiveRecursive(true);
 
             childrenArray[i] = displayObject;
@@ -128,24 +131,23 @@ public class MovieClip extends Sprite {
         MovieClipFrame frame = this.frames[index];
         int childIndex = 0;
 
-        for (MovieClipFrameElement element : frame.getElements()) {
-            DisplayObject child = this.timelineChildren[element.getChildIndex()];
+        for (int i = 0; i < frame.getElementCount(); i++) {
+            DisplayObject child = this.timelineChildren[frame.getChildIndex(i)];
             if (child == null) continue;
 
-            int matrixIndex = element.getMatrixIndex();
+            // Children own their matrices and color transforms, so the values are copied in place
+            int matrixIndex = frame.getMatrixIndex(i);
             if (matrixIndex != 0xFFFF) {
-                Matrix2x3 matrix = this.matrixBank.getMatrix(matrixIndex);
-                child.setMatrix(new Matrix2x3(matrix));
+                this.matrixBank.copyMatrix(matrixIndex, child.getMatrix());
             } else {
-                child.setMatrix(new Matrix2x3());
+                child.getMatrix().set(1, 0, 0, 1, 0, 0);
             }
 
-            int colorTransformIndex = element.getColorTransformIndex();
+            int colorTransformIndex = frame.getColorTransformIndex(i);
             if (colorTransformIndex != 0xFFFF) {
-                ColorTransform colorTransform = this.matrixBank.getColorTransform(colorTransformIndex);
-                child.setColorTransform(new ColorTransform(colorTransform));
+                this.matrixBank.copyColorTransform(colorTransformIndex, child.getColorTransform());
             } else {
-                child.setColorTransform(new ColorTransform());
+                child.getColorTransform().set(0, 0, 0, 255, 255, 255, 255);
             }
 
             this.addChildAt(child, childIndex++);
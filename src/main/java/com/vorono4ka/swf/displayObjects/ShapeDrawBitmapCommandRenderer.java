@@ -1,9 +1,9 @@
 package com.vorono4ka.swf.displayObjects;
 
 import com.vorono4ka.editor.renderer.Stage;
+import com.vorono4ka.editor.renderer.Texture;
 import com.vorono4ka.math.Rect;
 import com.vorono4ka.swf.ColorTransform;
-import com.vorono4ka.swf.GLImage;
 import com.vorono4ka.swf.Matrix2x3;
 import com.vorono4ka.swf.originalObjects.SWFTexture;
 import com.vorono4ka.swf.originalObjects.ShapeDrawBitmapCommand;
@@ -19,31 +19,41 @@ public class ShapeDrawBitmapCommandRenderer {
         return indices;
     }
 
-    public static boolean render(ShapeDrawBitmapCommand command, Stage stage, Matrix2x3 matrix, ColorTransform colorTransform, int renderConfigBits) {
-        Rect bounds = new Rect();
-
-        float[] transformedPoints = new float[command.getVertexCount() * 2];
-        for (int i = 0; i < command.getVertexCount(); i++) {
-            float x = matrix.applyX(command.getX(i), command.getY(i));
-            float y = matrix.applyY(command.getX(i), command.getY(i));
+    private static Rect calculateBounds(float[] points, int pointCount) {
+        if (pointCount == 0) return new Rect();
 
-            transformedPoints[i * 2] = x;
-            transformedPoints[i * 2 + 1] = y;
+        float left = points[0];
+        float top = points[1];
+        float right = left;
+        float bottom = top;
 
-            if (i == 0) {
-                bounds = new Rect(x, y, x, y);
-                continue;
-            }
+        for (int i = 1; i < pointCount; i++) {
+            float x = points[i * 2];
+            float y = points[i * 2 + 1];
 
-            bounds.addPoint(x, y);
+            left = Math.min(left, x);
+            right = Math.max(right, x);
+            top = Math.min(top, y);
+            bottom = Math.max(bottom, y);
         }
 
-        int triangleCount = command.getVertexCount() - 2;
+        return new Rect(left, top, right, bottom);
+    }
+
+    public static boolean render(ShapeDrawBitmapCommand command, Stage stage, Matrix2x3 matrix, ColorTransform colorTransform, int renderConfigBits) {
+        int vertexCount = command.getVertexCount();
+
+        float[] transformedPoints = new float[vertexCount * 2];
+        command.transformPoints(matrix, transformedPoints);
+
+        Rect bounds = calculateBounds(transformedPoints, vertexCount);
+
+        int triangleCount = vertexCount - 2;
         int[] indices = createTriangleIndices(triangleCount);
 
-        GLImage image = stage.getImageByIndex(command.getTextureIndex());
+        Texture texture = stage.getImageTexture(command.getTextureIndex());
 
-        if (stage.startShape(bounds, image.getTexture(), renderConfigBits)) {
+        if (stage.startShape(bounds, texture, renderConfigBits)) {
             stage.addTriangles(triangleCount, indices);
 
             float redMultiplier = colorTransform.getRedMultiplier() / 255f;
@@ -54,7 +64,7 @@ public class ShapeDrawBitmapCommandRenderer {
             float blueAddition = colorTransform.getBlueAddition() / 255f;
             float alpha = colorTransform.getAlpha() / 255f;
 
-            for (int i = 0; i < command.getVertexCount(); i++) {
+            for (int i = 0; i < vertexCount; i++) {
                 stage.addVertex(
                     transformedPoints[i * 2],
                     transformedPoints[i * 2 + 1],
@@ -77,10 +87,10 @@ public class ShapeDrawBitmapCommandRenderer {
     }
 
     public static boolean render9Slice(ShapeDrawBitmapCommand command, Stage stage, Matrix2x3 matrix, ColorTransform colorTransform, int renderConfigBits, Rect safeArea, Rect shapeBounds, float width, float height) {
-        Rect bounds = new Rect();
+        int vertexCount = command.getVertexCount();
 
-        float[] transformedPoints = new float[command.getVertexCount() * 2];
-        for (int i = 0; i < command.getVertexCount(); i++) {
+        float[] transformedPoints = new float[vertexCount * 2];
+        for (int i = 0; i < vertexCount; i++) {
             float x = command.getX(i);
             if (x <= safeArea.getLeft()) {
                 x = Math.min(safeArea.getMidX(), shapeBounds.getLeft() + (x - shapeBounds.getLeft()) * width);
@@ -95,26 +105,18 @@ public class ShapeDrawBitmapCommandRenderer {
                 y = Math.max(safeArea.getMidY(), shapeBounds.getBottom() + (y - shapeBounds.getBottom()) * height);
             }
 
-            float appliedX = matrix.applyX(x, y);
-            float appliedY = matrix.applyY(x, y);
-
-            transformedPoints[i * 2] = appliedX;
-            transformedPoints[i * 2 + 1] = appliedY;
-
-            if (i == 0) {
-                bounds = new Rect(appliedX, appliedY, appliedX, appliedY);
-                continue;
-            }
-
-            bounds.addPoint(appliedX, appliedY);
+            transformedPoints[i * 2] = matrix.applyX(x, y);
+            transformedPoints[i * 2 + 1] = matrix.applyY(x, y);
         }
 
-        int triangleCount = command.getVertexCount() - 2;
+        Rect bounds = calculateBounds(transformedPoints, vertexCount);
+
+        int triangleCount = vertexCount - 2;
         int[] indices = createTriangleIndices(triangleCount);
 
-        GLImage image = stage.getImageByIndex(command.getTextureIndex());
+        Texture texture = stage.getImageTexture(command.getTextureIndex());
 
-        if (stage.startShape(bounds, image.getTexture(), renderConfigBits)) {
+        if (stage.startShape(bounds, texture, renderConfigBits)) {
             stage.addTriangles(triangleCount, indices);
 
             float redMultiplier = colorTransform.getRedMultiplier() / 255f;
@@ -126,7 +128,7 @@ public class ShapeDrawBitmapCommandRenderer {
             float alpha = colorTransform.getAlpha() / 255f;
 
             // TODO: optimize vertices and pass color transform via uniforms instead
-            for (int i = 0; i < command.getVertexCount(); i++) {
+            for (int i = 0; i < vertexCount; i++) {
                 stage.addVertex(
                     transformedPoints[i * 2],
                     transformedPoints[i * 2 + 1],
@@ -4,4 +4,8 @@ public class LoadingFaultException extends Exception {
     public LoadingFaultException(String message) {
         super(message);
     }
+
+    public LoadingFaultException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
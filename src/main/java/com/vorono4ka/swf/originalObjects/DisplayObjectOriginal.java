@@ -6,6 +6,8 @@ public abstract class DisplayObjectOriginal implements Savable {
     protected Tag tag;
     protected int id;
 
+    private int loadedTagOffset = -1;
+
     public DisplayObjectOriginal() {
     }
 
@@ -21,4 +23,21 @@ public abstract class DisplayObjectOriginal implements Savable {
     public int getId() {
         return id;
     }
+
+    @Override
+    public int getLoadedTagOffset() {
+        return this.loadedTagOffset;
+    }
+
+    public void setLoadedTagOffset(int loadedTagOffset) {
+        this.loadedTagOffset = loadedTagOffset;
+    }
+
+    /**
+     * Makes the object saved from its fields instead of copying the loaded tag.
+     * Called by the setters, getters return copies of the saved arrays.
+     */
+    protected void markModified() {
+        this.loadedTagOffset = -1;
+    }
 }
@@ -13,4 +13,12 @@ public class MovieClipModifierOriginal extends DisplayObjectOriginal {
     public void save(ByteStream stream) {
         stream.writeShort(this.id);
     }
+
+    /**
+     * @param tag {@link Tag#MODIFIER_STATE_2}, {@link Tag#MODIFIER_STATE_3} or {@link Tag#MODIFIER_STATE_4}
+     */
+    public void setTag(Tag tag) {
+        this.tag = tag;
+        this.markModified();
+    }
 }
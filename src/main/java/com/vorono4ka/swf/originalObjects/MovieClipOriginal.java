@@ -4,7 +4,6 @@ import com.vorono4ka.math.MathHelper;
 import com.vorono4ka.math.Rect;
 import com.vorono4ka.streams.ByteStream;
 import com.vorono4ka.swf.MovieClipFrame;
-import com.vorono4ka.swf.MovieClipFrameElement;
 import com.vorono4ka.swf.SupercellSWF;
 import com.vorono4ka.swf.constants.Tag;
 import com.vorono4ka.swf.exceptions.*;
@@ -30,6 +29,7 @@ public class MovieClipOriginal extends DisplayObjectOriginal {
 
     private String exportName;
     private DisplayObjectOriginal[] children;
+    private Runnable childrenChangeListener;
 
     public int load(ByteStream stream, Tag tag, String filename) throws LoadingFaultException, UnsupportedCustomPropertyException {
         this.tag = tag;
@@ -109,20 +109,15 @@ public class MovieClipOriginal extends DisplayObjectOriginal {
                 case MOVIE_CLIP_FRAME,
                      MOVIE_CLIP_FRAME_2 -> {  // TAG_MOVIE_CLIP_FRAME no longer supported
                     MovieClipFrame frame = this.frames[loadedCommands++];
-                    int elementCount = frame.load(stream, tagValue);
+                    // Frames only refer to their part of the packed array
+                    int elementCount = frame.load(stream, tagValue, this.frameElements, usedElements);
 
                     if (tagValue != Tag.MOVIE_CLIP_FRAME) {
-                        MovieClipFrameElement[] elements = new MovieClipFrameElement[elementCount];
-                        for (int i = 0; i < elementCount; i++) {
-                            elements[i] = new MovieClipFrameElement(
-                                this.frameElements[usedElements * 3] & 0xFFFF,
-                                this.frameElements[usedElements * 3 + 1] & 0xFFFF,
-                                this.frameElements[usedElements * 3 + 2] & 0xFFFF
-                            );
-
-                            usedElements++;
+                        if ((usedElements + elementCount) * MovieClipFrame.ELEMENT_SIZE > this.frameElements.length) {
+                            throw new LoadingFaultException(String.format("Frame elements out of bounds in MovieClip %d, %s", this.id, filename));
                         }
-                        frame.setElements(elements);
+
+                        usedElements += elementCount;
                     }
                 }
                 case SCALING_GRID -> {
@@ -160,16 +155,18 @@ public class MovieClipOriginal extends DisplayObjectOriginal {
 
         stream.writeShort(this.frames.length);
 
-        List<MovieClipFrameElement> frameElements = new ArrayList<>();
+        int elementCount = 0;
         for (MovieClipFrame frame : this.frames) {
-            Collections.addAll(frameElements, frame.getElements());
+            elementCount += frame.getElementCount();
         }
 
-        stream.writeInt(frameElements.size());
-        for (MovieClipFrameElement element : frameElements) {
-            stream.writeShort(element.getChildIndex());
-            stream.writeShort(element.getMatrixIndex());
-            stream.writeShort(element.getColorTransformIndex());
+        stream.writeInt(elementCount);
+        for (MovieClipFrame frame : this.frames) {
+            for (int i = 0; i < frame.getElementCount(); i++) {
+                stream.writeShort(frame.getChildIndex(i));
+                stream.writeShort(frame.getMatrixIndex(i));
+                stream.writeShort(frame.getColorTransformIndex(i));
+            }
         }
 
         stream.writeShort(this.childrenIds.length);
@@ -217,32 +214,87 @@ public class MovieClipOriginal extends DisplayObjectOriginal {
         }
     }
 
+    @Override
+    public int getLoadedTagOffset() {
+        for (MovieClipFrame frame : this.frames) {
+            if (frame.isModified()) return -1;
+        }
+
+        return super.getLoadedTagOffset();
+    }
+
     public int getFps() {
         return fps;
     }
 
+    /**
+     * @return copy of the frame array, frames track their own changes
+     */
     public MovieClipFrame[] getFrames() {
-        return frames;
+        return this.frames.clone();
+    }
+
+    public int getFrameCount() {
+        return this.frames.length;
     }
 
     public int getChildrenCount() {
         return childrenCount;
     }
 
+    /**
+     * @return copy of the blend modes, use {@link #setChildBlend(int, byte)} to change them
+     */
     public byte[] getChildrenBlends() {
-        return childrenBlends;
+        return this.childrenBlends.clone();
     }
 
+    public void setChildBlend(int childIndex, byte blend) {
+        this.childrenBlends[childIndex] = blend;
+        this.markModified();
+    }
+
+    /**
+     * @return copy of the child ids, use {@link #setChildId(int, short)} to change them
+     */
     public short[] getChildrenIds() {
-        return childrenIds;
+        return this.childrenIds.clone();
+    }
+
+    public void setChildId(int childIndex, short id) {
+        this.childrenIds[childIndex] = id;
+        this.children = null;
+        this.markModified();
+
+        if (this.childrenChangeListener != null) {
+            this.childrenChangeListener.run();
+        }
+    }
+
+    /**
+     * @param listener called after {@link #setChildId(int, short)} replaces a child, so the data built from the children can be dropped
+     */
+    public void setChildrenChangeListener(Runnable listener) {
+        this.childrenChangeListener = listener;
     }
 
+    /**
+     * @return copy of the child names, use {@link #setChildName(int, String)} to change them
+     */
     public String[] getChildrenNames() {
-        return childrenNames;
+        return this.childrenNames.clone();
+    }
+
+    public void setChildName(int childIndex, String name) {
+        this.childrenNames[childIndex] = name;
+        this.markModified();
     }
 
+    /**
+     * @return copy of the scaling grid or null, if the MovieClip has no scaling grid
+     */
     public Rect getScalingGrid() {
-        return scalingGrid;
+        return this.scalingGrid != null ? new Rect(this.scalingGrid) : null;
     }
 
     public int getMatrixBankIndex() {
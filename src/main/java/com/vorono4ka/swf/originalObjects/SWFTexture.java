@@ -6,46 +6,49 @@ import com.vorono4ka.swf.TextureInfo;
 import com.vorono4ka.swf.constants.Tag;
 import com.vorono4ka.swf.exceptions.LoadingFaultException;
 import com.vorono4ka.swf.exceptions.TextureFileNotFound;
-import com.vorono4ka.utilities.ArrayUtils;
 import com.vorono4ka.utilities.BufferUtils;
+import com.vorono4ka.utilities.DirectBufferPool;
 import team.nulls.ntengine.assets.KhronosTexture;
 import team.nulls.ntengine.assets.KhronosTextureDataLoader;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
-import java.nio.ShortBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.util.function.BiConsumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 public class SWFTexture implements Savable {
     public static final int TILE_SIZE = 32;
 
+    private static final DirectBufferPool KTX_BUFFER_POOL = new DirectBufferPool(2);
+
     private Tag tag;
 
     private int type;
     private int width, height;
-    private KhronosTexture khronosTexture;
-    private Buffer pixels;
+    private CompletableFuture<KhronosTexture> khronosTexture = CompletableFuture.completedFuture(null);
+    private CompletableFuture<Buffer> pixels = CompletableFuture.completedFuture(null);
+    // Completes the texture data futures, null if there is nothing to decode or the decoding has started
+    private Runnable decoding;
 
     private int index = -1;
     private TextureInfo textureInfo;
 
+    private int loadedTagOffset = -1;
+
     public SWFTexture() {
     }
 
-    private static byte[] getTextureFileBytes(Path directory, String compressedTextureFilename) throws TextureFileNotFound {
+    private static ByteBuffer getTextureFileBytes(Path directory, String compressedTextureFilename) throws TextureFileNotFound {
         Path compressedTextureFilepath = directory.resolve(compressedTextureFilename);
-        File file = new File(compressedTextureFilepath.toUri());
 
-        byte[] compressedData;
-        try (FileInputStream fis = new FileInputStream(file)) {
-            compressedData = fis.readAllBytes();
-        } catch (FileNotFoundException e) {
+        ByteBuffer compressedData;
+        try {
+            compressedData = BufferUtils.mapFile(compressedTextureFilepath);
+        } catch (NoSuchFileException e) {
             throw new TextureFileNotFound(compressedTextureFilepath.toString());
         } catch (IOException e) {
             throw new RuntimeException(e);
@@ -53,6 +56,22 @@ public class SWFTexture implements Savable {
         return compressedData;
     }
 
+    /**
+     * Returns pixel data as a view of the stream if it is backed by a direct buffer,
+     * so pixels can be uploaded to OpenGL without copying.
+     */
+    private static ByteBuffer readPixelBytes(ByteStream stream, int length) {
+        ByteBuffer pixels = stream.readSlice(length);
+        if (pixels.isDirect()) {
+            return pixels;
+        }
+
+        ByteBuffer directPixels = BufferUtils.allocateDirect(length).order(ByteOrder.LITTLE_ENDIAN);
+        directPixels.put(pixels);
+        directPixels.position(0);
+        return directPixels;
+    }
+
     private static boolean hasInterlacing(Tag tag) {
         return tag == Tag.TEXTURE_5 || tag == Tag.TEXTURE_6 || tag == Tag.TEXTURE_7;
     }
@@ -82,18 +101,72 @@ public class SWFTexture implements Savable {
 
         textureInfo = TextureInfo.getTextureInfoByType(type);
 
+        // Only the texture data range is read here, decoding is done in background after startDecoding
         switch (tag) {
             case KHRONOS_TEXTURE -> {
-                byte[] bytes = stream.readByteArray(khronosTextureLength);
-                khronosTexture = KhronosTextureDataLoader.decodeKtx(BufferUtils.wrapDirect(bytes));
+                ByteBuffer data = stream.readSlice(khronosTextureLength);
+                CompletableFuture<KhronosTexture> khronosTexture = new CompletableFuture<>();
+                this.khronosTexture = khronosTexture;
+                this.decoding = () -> khronosTexture.completeAsync(() -> KhronosTextureDataLoader.decodeKtx(data));
             }
             case COMPRESSED_KHRONOS_TEXTURE -> {
-                byte[] compressedData = getTextureFileBytes(directory, compressedTextureFilename);
-                byte[] decompressed = Decompressor.decompressZstd(compressedData, 0);
-                khronosTexture = KhronosTextureDataLoader.decodeKtx(BufferUtils.wrapDirect(decompressed));
+                ByteBuffer compressedData = getTextureFileBytes(directory, compressedTextureFilename);
+                CompletableFuture<KhronosTexture> khronosTexture = new CompletableFuture<>();
+                this.khronosTexture = khronosTexture;
+                this.decoding = () -> khronosTexture.completeAsync(() -> decodeCompressedKtx(compressedData));
             }
-            default ->
-                pixels = loadTexture(stream, width, height, textureInfo.pixelBytes(), hasInterlacing(tag));
+            default -> {
+                int width = this.width;
+                int height = this.height;
+                int pixelBytes = textureInfo.pixelBytes();
+                boolean hasInterlacing = hasInterlacing(tag);
+
+                ByteStream pixelStream = new ByteStream(stream.readSlice(width * height * pixelBytes));
+                CompletableFuture<Buffer> pixels = new CompletableFuture<>();
+                this.pixels = pixels;
+                this.decoding = () -> pixels.completeAsync(() -> loadTexture(pixelStream, width, height, pixelBytes, hasInterlacing));
+            }
+        }
+    }
+
+    /**
+     * Starts decoding the texture data in background, if it hasn't been started yet. <br>
+     * <br>
+     * Requesting the decoded data starts the decoding too, so textures which are never used
+     * keep only the range of the file data.
+     */
+    public synchronized void startDecoding() {
+        if (this.decoding == null) return;
+
+        Runnable decoding = this.decoding;
+        this.decoding = null;
+        decoding.run();
+    }
+
+    /**
+     * Takes the header and the data of the same texture loaded from the texture file.
+     * The offset of the main file tag is kept.
+     */
+    public synchronized void setTextureFileData(SWFTexture texture) {
+        synchronized (texture) {
+            this.tag = texture.tag;
+            this.type = texture.type;
+            this.width = texture.width;
+            this.height = texture.height;
+            this.textureInfo = texture.textureInfo;
+            this.khronosTexture = texture.khronosTexture;
+            this.pixels = texture.pixels;
+            this.decoding = texture.decoding;
+        }
+    }
+
+    private static KhronosTexture decodeCompressedKtx(ByteBuffer compressedData) {
+        // KTX levels are copied out of the decompressed data, so the buffer can be reused
+        ByteBuffer decompressed = Decompressor.decompressZstd(compressedData, KTX_BUFFER_POOL);
+        try {
+            return KhronosTextureDataLoader.decodeKtx(decompressed);
+        } finally {
+            KTX_BUFFER_POOL.release(decompressed);
         }
     }
 
@@ -118,6 +191,19 @@ public class SWFTexture implements Savable {
 
     public void setTag(Tag tag) {
         this.tag = tag;
+        this.loadedTagOffset = -1;
+    }
+
+    /**
+     * @return offset of the tag in the loaded file, the tag also keeps the pixels which aren't saved from the fields
+     */
+    @Override
+    public int getLoadedTagOffset() {
+        return loadedTagOffset;
+    }
+
+    public void setLoadedTagOffset(int loadedTagOffset) {
+        this.loadedTagOffset = loadedTagOffset;
     }
 
     public int getType() {
@@ -136,100 +222,84 @@ public class SWFTexture implements Savable {
         return textureInfo;
     }
 
+    /**
+     * Waits for the texture to be decoded.
+     *
+     * @return decoded texture or null, if the texture is not in KTX format
+     */
     public KhronosTexture getKhronosTexture() {
+        return this.getKhronosTextureAsync().join();
+    }
+
+    public CompletableFuture<KhronosTexture> getKhronosTextureAsync() {
+        this.startDecoding();
         return khronosTexture;
     }
 
+    /**
+     * Waits for the texture to be decoded.
+     *
+     * @return pixels or null, if the texture is in KTX format or has no data in this file
+     */
     public Buffer getPixels() {
-        return pixels;
+        return this.getPixelsAsync().join();
     }
 
-    private Buffer loadTexture(ByteStream stream, int width, int height, int pixelBytes, boolean hasInterlacing) {
-        return switch (pixelBytes) {
-            case 1 -> loadTextureAsChar(stream, width, height, hasInterlacing);
-            case 2 -> loadTextureAsShort(stream, width, height, hasInterlacing);
-            case 4 -> loadTextureAsInt(stream, width, height, hasInterlacing);
-            default -> throw new IllegalStateException("Unexpected value: " + pixelBytes);
-        };
+    public CompletableFuture<Buffer> getPixelsAsync() {
+        this.startDecoding();
+        return pixels;
     }
 
-    private ByteBuffer loadTextureAsChar(ByteStream stream, int width, int height, boolean separatedByTiles) {
-        if (separatedByTiles) {
-            ByteBuffer pixels = BufferUtils.allocateDirect(width * height);
-
-            loadInterlacedTexture(stream, width, height, this::readTileAsChar, pixels::put);
-
-            return pixels;
-        } else {
-            return BufferUtils.wrapDirect(stream.readByteArray(width * height));
+    private Buffer loadTexture(ByteStream stream, int width, int height, int pixelBytes, boolean hasInterlacing) {
+        if (pixelBytes != 1 && pixelBytes != 2 && pixelBytes != 4) {
+            throw new IllegalStateException("Unexpected value: " + pixelBytes);
         }
-    }
-
-    private ShortBuffer loadTextureAsShort(ByteStream stream, int width, int height, boolean separatedByTiles) {
-        if (separatedByTiles) {
-            ShortBuffer pixels = BufferUtils.allocateDirect(width * height * Short.BYTES).asShortBuffer();
-
-            loadInterlacedTexture(stream, width, height, this::readTileAsShort, pixels::put);
 
-            return pixels;
+        ByteBuffer pixels;
+        if (hasInterlacing) {
+            pixels = untile(stream.readSlice(width * height * pixelBytes), width, height, pixelBytes);
         } else {
-            return BufferUtils.wrapDirect(stream.readShortArray(width * height));
+            pixels = readPixelBytes(stream, width * height * pixelBytes);
         }
-    }
-
-    private IntBuffer loadTextureAsInt(ByteStream stream, int width, int height, boolean separatedByTiles) {
-        if (separatedByTiles) {
-            IntBuffer pixels = BufferUtils.allocateDirect(width * height * Integer.BYTES).asIntBuffer();
 
-            loadInterlacedTexture(stream, width, height, this::readTileAsInt, pixels::put);
-
-            return pixels;
-        } else {
-            return BufferUtils.wrapDirect(stream.readIntArray(width * height));
-        }
+        return switch (pixelBytes) {
+            case 2 -> pixels.asShortBuffer();
+            case 4 -> pixels.asIntBuffer();
+            default -> pixels;
+        };
     }
 
-    private Byte[] readTileAsChar(ByteStream stream, int width, int height) {
-        return ArrayUtils.toObject(stream.readByteArray(width * height));
-    }
+    /**
+     * Copies pixels stored in 32x32 tiles into a linear buffer line by line.
+     * Tile rows don't overlap, so they are copied in parallel.
+     */
+    static ByteBuffer untile(ByteBuffer tiles, int width, int height, int pixelBytes) {
+        ByteBuffer pixels = BufferUtils.allocateDirect(width * height * pixelBytes).order(ByteOrder.LITTLE_ENDIAN);
 
-    private Short[] readTileAsShort(ByteStream stream, int width, int height) {
-        return ArrayUtils.toObject(stream.readShortArray(width * height));
-    }
+        int tileRowCount = (height + TILE_SIZE - 1) / TILE_SIZE;
+        IntStream.range(0, tileRowCount).parallel().forEach((tileY) -> untileRow(tiles, pixels, width, height, pixelBytes, tileY));
 
-    private Integer[] readTileAsInt(ByteStream stream, int width, int height) {
-        return ArrayUtils.toObject(stream.readIntArray(width * height));
+        return pixels;
     }
 
-    private <T> void loadInterlacedTexture(ByteStream stream, int width, int height, TileReader<T> tileReader, BiConsumer<Integer, T> pixelConsumer) {
-        int xTileCount = width / TILE_SIZE;
-        int yTileCount = height / TILE_SIZE;
+    static void untileRow(ByteBuffer tiles, ByteBuffer pixels, int width, int height, int pixelBytes, int tileY) {
+        int tileHeight = Math.min(height - tileY * TILE_SIZE, TILE_SIZE);
+        int rowLength = width * pixelBytes;
 
-        for (int tileY = 0; tileY < yTileCount + 1; tileY++) {
-            for (int tileX = 0; tileX < xTileCount + 1; tileX++) {
-                int tileWidth = Math.min(width - (tileX * TILE_SIZE), TILE_SIZE);
-                int tileHeight = Math.min(height - (tileY * TILE_SIZE), TILE_SIZE);
+        // Each tile row contains TILE_SIZE full pixel lines
+        int tileOffset = tileY * TILE_SIZE * rowLength;
 
-                T[] tilePixels = tileReader.readTile(stream, tileWidth, tileHeight);
+        for (int tileX = 0; tileX * TILE_SIZE < width; tileX++) {
+            int tileWidth = Math.min(width - tileX * TILE_SIZE, TILE_SIZE);
+            int lineLength = tileWidth * pixelBytes;
 
-                for (int y = 0; y < tileHeight; y++) {
-                    int pixelY = (tileY * TILE_SIZE) + y;
+            int pixelOffset = tileY * TILE_SIZE * rowLength + tileX * TILE_SIZE * pixelBytes;
+            for (int y = 0; y < tileHeight; y++) {
+                pixels.put(pixelOffset, tiles, tileOffset, lineLength);
 
-                    for (int x = 0; x < tileWidth; x++) {
-                        int pixelX = (tileX * TILE_SIZE) + x;
-
-                        int index = pixelY * width + pixelX;
-                        int tilePixelIndex = y * tileWidth + x;
-                        T tilePixel = tilePixels[tilePixelIndex];
-                        pixelConsumer.accept(index, tilePixel);
-                    }
-                }
+                pixelOffset += rowLength;
+                tileOffset += lineLength;
             }
         }
     }
-
-    @FunctionalInterface
-    private interface TileReader<T> {
-        T[] readTile(ByteStream stream, int tileWidth, int tileHeight);
-    }
 }
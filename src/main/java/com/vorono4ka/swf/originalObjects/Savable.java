@@ -7,4 +7,12 @@ public interface Savable {
     void save(ByteStream stream);
 
     Tag getTag();
+
+    /**
+     * @return offset of the tag header in the data of the loaded file or -1,
+     * if the object has been modified since loading and has to be saved again
+     */
+    default int getLoadedTagOffset() {
+        return -1;
+    }
 }
@@ -1,22 +1,27 @@
 package com.vorono4ka.swf.originalObjects;
 
-import com.vorono4ka.math.Point;
 import com.vorono4ka.streams.ByteStream;
+import com.vorono4ka.swf.Matrix2x3;
 import com.vorono4ka.swf.constants.Tag;
 
 import java.util.Arrays;
 import java.util.function.Function;
 
 public class ShapeDrawBitmapCommand {
+    // x, y, u, v
+    public static final int VERTEX_STRIDE = 4;
+
     private Tag tag;
 
     private int textureIndex;
     private int vertexCount;
-    private Point[] shapePoints;
-    private Point[] sheetPoints;
+    // Interleaved positions and normalized texture coordinates
+    private float[] vertices;
 
     private SWFTexture texture;
 
+    private boolean isModified;
+
     public void load(ByteStream stream, Tag tag, Function<Integer, SWFTexture> imageFunction) {
         this.tag = tag;
 
@@ -28,15 +33,12 @@ public class ShapeDrawBitmapCommand {
             this.vertexCount = stream.readUnsignedChar();
         }
 
-        this.shapePoints = new Point[this.vertexCount];
+        this.vertices = new float[this.vertexCount * VERTEX_STRIDE];
         for (int i = 0; i < this.vertexCount; i++) {
-            float x = stream.readTwip();
-            float y = stream.readTwip();
-
-            this.shapePoints[i] = new Point(x, y);
+            this.vertices[i * VERTEX_STRIDE] = stream.readTwip();
+            this.vertices[i * VERTEX_STRIDE + 1] = stream.readTwip();
         }
 
-        this.sheetPoints = new Point[this.vertexCount];
         for (int i = 0; i < this.vertexCount; i++) {
             float u = stream.readShort();
             float v = stream.readShort();
@@ -49,7 +51,8 @@ public class ShapeDrawBitmapCommand {
                 v /= 65535f * this.texture.getHeight();
             }
 
-            this.sheetPoints[i] = new Point(u, v);
+            this.vertices[i * VERTEX_STRIDE + 2] = u / 65535f;
+            this.vertices[i * VERTEX_STRIDE + 3] = v / 65535f;
         }
     }
 
@@ -60,14 +63,14 @@ public class ShapeDrawBitmapCommand {
             stream.writeUnsignedChar(this.vertexCount);
         }
 
-        for (Point point : this.shapePoints) {
-            stream.writeTwip(point.getX());
-            stream.writeTwip(point.getY());
+        for (int i = 0; i < this.vertexCount; i++) {
+            stream.writeTwip(this.vertices[i * VERTEX_STRIDE]);
+            stream.writeTwip(this.vertices[i * VERTEX_STRIDE + 1]);
         }
 
-        for (Point point : this.sheetPoints) {
-            float u = point.getX();
-            float v = point.getY();
+        for (int i = 0; i < this.vertexCount; i++) {
+            float u = this.vertices[i * VERTEX_STRIDE + 2] * 65535f;
+            float v = this.vertices[i * VERTEX_STRIDE + 3] * 65535f;
 
             if (this.tag != Tag.SHAPE_DRAW_BITMAP_COMMAND_3) {
                 u *= 65535f / this.texture.getWidth();
@@ -79,34 +82,66 @@ public class ShapeDrawBitmapCommand {
         }
     }
 
+    /**
+     * Applies the matrix to the positions of packed command vertices.
+     *
+     * @param vertices    vertices with {@link #VERTEX_STRIDE} floats each: x, y, u, v
+     * @param destination transformed x and y pairs
+     */
+    public static void transformPoints(float[] vertices, int vertexCount, Matrix2x3 matrix, float[] destination) {
+        float a = matrix.getScaleX();
+        float b = matrix.getShearX();
+        float c = matrix.getShearY();
+        float d = matrix.getScaleY();
+        float tx = matrix.getX();
+        float ty = matrix.getY();
+
+        for (int i = 0; i < vertexCount; i++) {
+            float x = vertices[i * VERTEX_STRIDE];
+            float y = vertices[i * VERTEX_STRIDE + 1];
+
+            // Same as Matrix2x3.applyX and applyY
+            destination[i * 2] = x * a + y * c + tx;
+            destination[i * 2 + 1] = y * d + x * b + ty;
+        }
+    }
+
+    /**
+     * Applies the matrix to the positions of the command vertices without exposing the vertex array,
+     * so the vertices can only be changed with {@link #setXY} and {@link #setUV}.
+     *
+     * @param destination transformed x and y pairs, at least 2 * {@link #getVertexCount()} floats
+     */
+    public void transformPoints(Matrix2x3 matrix, float[] destination) {
+        transformPoints(this.vertices, this.vertexCount, matrix, destination);
+    }
+
     public float getX(int pointIndex) {
-        return this.shapePoints[pointIndex].getX();
+        return this.vertices[pointIndex * VERTEX_STRIDE];
     }
 
     public float getY(int pointIndex) {
-        return this.shapePoints[pointIndex].getY();
+        return this.vertices[pointIndex * VERTEX_STRIDE + 1];
     }
 
     public void setXY(int pointIndex, float x, float y) {
-        Point point = this.shapePoints[pointIndex];
-
-        point.setX(x);
-        point.setY(y);
+        this.vertices[pointIndex * VERTEX_STRIDE] = x;
+        this.vertices[pointIndex * VERTEX_STRIDE + 1] = y;
+        this.isModified = true;
     }
 
     public float getU(int pointIndex) {
-        return this.sheetPoints[pointIndex].getX() / 65535f;
+        return this.vertices[pointIndex * VERTEX_STRIDE + 2];
     }
 
     public float getV(int pointIndex) {
-        return this.sheetPoints[pointIndex].getY() / 65535f;
+        return this.vertices[pointIndex * VERTEX_STRIDE + 3];
     }
 
     public void setUV(int pointIndex, float u, float v) {
-        Point point = this.sheetPoints[pointIndex];
-
-        point.setX(u * 65535f);
-        point.setY(v * 65535f);
+        this.vertices[pointIndex * VERTEX_STRIDE + 2] = u;
+        this.vertices[pointIndex * VERTEX_STRIDE + 3] = v;
+        this.isModified = true;
     }
 
     public Tag getTag() {
@@ -115,6 +150,14 @@ public class ShapeDrawBitmapCommand {
 
     public void setTag(Tag tag) {
         this.tag = tag;
+        this.isModified = true;
+    }
+
+    /**
+     * @return true, if the command has been changed since loading, so its shape has to be saved again
+     */
+    public boolean isModified() {
+        return isModified;
     }
 
     public int getTextureIndex() {
@@ -135,10 +178,14 @@ public class ShapeDrawBitmapCommand {
 
         if (other instanceof ShapeDrawBitmapCommand command) {
 
-            return Arrays.equals(command.shapePoints, this.shapePoints) &&
-                Arrays.equals(command.sheetPoints, this.sheetPoints);
+            return Arrays.equals(command.vertices, this.vertices);
         }
 
         return false;
     }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.vertices);
+    }
 }
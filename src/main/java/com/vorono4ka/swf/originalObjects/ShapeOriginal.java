@@ -88,8 +88,20 @@ public class ShapeOriginal extends DisplayObjectOriginal {
         });
     }
 
+    @Override
+    public int getLoadedTagOffset() {
+        for (ShapeDrawBitmapCommand command : this.commands) {
+            if (command.isModified()) return -1;
+        }
+
+        return super.getLoadedTagOffset();
+    }
+
+    /**
+     * @return copy of the command array, commands track their own changes
+     */
     public ShapeDrawBitmapCommand[] getCommands() {
-        return this.commands;
+        return this.commands.clone();
     }
 
     private int calculatePointCount() {
@@ -153,4 +153,13 @@ public class TextFieldOriginal extends DisplayObjectOriginal {
 
         stream.writeBoolean(this.autoAdjustFontSize);
     }
+
+    public String getDefaultText() {
+        return defaultText;
+    }
+
+    public void setDefaultText(String defaultText) {
+        this.defaultText = defaultText;
+        this.markModified();
+    }
 }
@@ -1,6 +1,10 @@
 package com.vorono4ka.utilities;
 
+import java.io.IOException;
 import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 @SuppressWarnings("unused")
 public final class BufferUtils {
@@ -41,6 +45,35 @@ public final class BufferUtils {
         return floatBuffer;
     }
 
+    public static int indexOf(ByteBuffer buffer, byte[] bytesToFind) {
+        int end = buffer.limit() - bytesToFind.length;
+        for (int i = buffer.position(); i <= end; i++) {
+            boolean found = true;
+            for (int j = 0; j < bytesToFind.length; j++) {
+                if (buffer.get(i + j) != bytesToFind[j]) {
+                    found = false;
+                    break;
+                }
+            }
+
+            if (found) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Maps the whole file into memory in read-only mode.
+     * The mapping stays valid after the method returns.
+     */
+    public static MappedByteBuffer mapFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
     public static ByteBuffer allocateDirect(int size) {
         return ByteBuffer.allocateDirect(size).order(NATIVE_ORDER);
     }
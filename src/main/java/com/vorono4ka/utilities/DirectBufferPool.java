@@ -0,0 +1,51 @@
+package com.vorono4ka.utilities;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a few released direct buffers for reuse, so short-lived decompression
+ * buffers don't have to be allocated for every file.
+ */
+public final class DirectBufferPool {
+    private final ConcurrentLinkedDeque<ByteBuffer> buffers = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger bufferCount = new AtomicInteger();
+    private final int maxBufferCount;
+
+    public DirectBufferPool(int maxBufferCount) {
+        this.maxBufferCount = maxBufferCount;
+    }
+
+    /**
+     * Returns a cleared buffer with the limit set to the requested size.
+     * The buffer order is native.
+     */
+    public ByteBuffer acquire(int size) {
+        Iterator<ByteBuffer> iterator = this.buffers.iterator();
+        while (iterator.hasNext()) {
+            ByteBuffer buffer = iterator.next();
+            if (buffer.capacity() >= size && this.buffers.removeFirstOccurrence(buffer)) {
+                this.bufferCount.decrementAndGet();
+                return buffer.clear().limit(size).order(BufferUtils.NATIVE_ORDER);
+            }
+        }
+
+        return BufferUtils.allocateDirect(size);
+    }
+
+    /**
+     * Returns the buffer to the pool. The buffer must not be used after releasing.
+     */
+    public void release(ByteBuffer buffer) {
+        if (!buffer.isDirect()) return;
+
+        if (this.bufferCount.incrementAndGet() > this.maxBufferCount) {
+            this.bufferCount.decrementAndGet();
+            return;
+        }
+
+        this.buffers.addFirst(buffer);
+    }
+}
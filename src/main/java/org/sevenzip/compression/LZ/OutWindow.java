@@ -50,10 +50,20 @@ public class OutWindow {
 		int pos = _pos - distance - 1;
 		if (pos < 0)
 			pos += _windowSize;
-		for (; len != 0; len--) {
+		while (len != 0) {
 			if (pos >= _windowSize)
 				pos = 0;
-			_buffer[_pos++] = _buffer[pos++];
+			int count = Math.min(len, Math.min(_windowSize - _pos, _windowSize - pos));
+			if (pos < _pos && _pos - pos < count) {
+				// Overlapping copy repeats the last bytes, so it has to go forward byte by byte
+				for (int i = 0; i < count; i++)
+					_buffer[_pos + i] = _buffer[pos + i];
+			}
+			else
+				System.arraycopy(_buffer, pos, _buffer, _pos, count);
+			_pos += count;
+			pos += count;
+			len -= count;
 			if (_pos >= _windowSize)
 				flush();
 		}
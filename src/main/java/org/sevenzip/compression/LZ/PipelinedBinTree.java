@@ -0,0 +1,241 @@
+// LZ.PipelinedBinTree
+
+package org.sevenzip.compression.LZ;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Match finder which runs BinTree in a separate thread ahead of the encoder,
+ * so match finding and encoding are done in parallel. <br>
+ * <br>
+ * Matches are found for every position, skipped ones included, which keeps the output
+ * a regular LZMA stream. <br>
+ * <br>
+ * The bytes read by the match finder are copied into a ring window for the encoder. The window keeps
+ * the dictionary behind the encoder and everything the match finder has read ahead of it,
+ * so memory doesn't depend on the input size.
+ */
+public class PipelinedBinTree extends BinTree {
+	static final int kBlockSize = 1 << 16;
+	static final int kNumBlocks = 16;
+
+	static class Block {
+		final int[] values = new int[kBlockSize];
+		int size;
+		int pos;
+		boolean last;
+		Throwable error;
+	}
+
+	final BinTree _finder = new BinTree();
+
+	final BlockingQueue<Block> _filledBlocks = new ArrayBlockingQueue<>(kNumBlocks);
+	final BlockingQueue<Block> _freeBlocks = new ArrayBlockingQueue<>(kNumBlocks);
+
+	Thread _thread;
+	Block _block;
+
+	int _historySize;
+
+	// Ring window indexed by the position in the input
+	byte[] _window;
+	int _windowMask;
+	int _dataPos;
+	int _numAvailableBytes;
+
+	public void SetType(int numHashBytes) {
+		super.SetType(numHashBytes);
+		_finder.SetType(numHashBytes);
+	}
+
+	public boolean Create(int historySize, int keepAddBufferBefore,
+			int matchMaxLen, int keepAddBufferAfter) {
+		_matchMaxLen = matchMaxLen;
+		_historySize = historySize;
+		return _finder.Create(historySize, keepAddBufferBefore, matchMaxLen, keepAddBufferAfter);
+	}
+
+	// The match finder is ahead of the encoder by the positions in blocks and by its own read-ahead,
+	// and the encoder looks back by the dictionary size, so these bytes are never overwritten while in use
+	int getWindowSize() {
+		int size = _finder._blockSize + kNumBlocks * kBlockSize / 2 + _historySize + _matchMaxLen + 16;
+		return Integer.highestOneBit(size - 1) << 1;
+	}
+
+	public void init() throws IOException {
+		stopThread();
+
+		int windowSize = getWindowSize();
+		if (_window == null || _window.length != windowSize)
+			_window = new byte[windowSize];
+		_windowMask = windowSize - 1;
+
+		_finder.setStream(new WindowStream(_stream));
+		_finder.init();
+
+		_dataPos = 0;
+		_numAvailableBytes = _finder.getNumAvailableBytes();
+
+		// Blocks may be left in the stopped thread, so the pool is created again
+		_filledBlocks.clear();
+		_freeBlocks.clear();
+		for (int i = 0; i < kNumBlocks; i++)
+			_freeBlocks.add(new Block());
+		_block = null;
+
+		_thread = new Thread(this::findMatches, "LZMA match finder");
+		_thread.setDaemon(true);
+		_thread.start();
+	}
+
+	public void ReleaseStream() {
+		stopThread();
+		_finder.ReleaseStream();
+		super.ReleaseStream();
+	}
+
+	void stopThread() {
+		if (_thread == null)
+			return;
+		_thread.interrupt();
+		try {
+			_thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		_thread = null;
+	}
+
+	// Each entry is: available bytes after the step, distance pair values count, distance pairs
+	void findMatches() {
+		int[] distances = new int[_matchMaxLen * 2 + 2];
+		Block block = null;
+		try {
+			block = takeBlock(_freeBlocks);
+			while (_finder.getNumAvailableBytes() > 0) {
+				int numDistances = _finder.GetMatches(distances);
+				if (block.size + 2 + numDistances > kBlockSize) {
+					_filledBlocks.put(block);
+					block = takeBlock(_freeBlocks);
+				}
+				block.values[block.size++] = _finder.getNumAvailableBytes();
+				block.values[block.size++] = numDistances;
+				System.arraycopy(distances, 0, block.values, block.size, numDistances);
+				block.size += numDistances;
+			}
+			block.last = true;
+			_filledBlocks.put(block);
+		} catch (InterruptedException e) {
+			// Stopped by the encoder
+		} catch (Throwable e) {
+			if (block != null) {
+				block.error = e;
+				block.last = true;
+				_filledBlocks.offer(block);
+			}
+		}
+	}
+
+	static Block takeBlock(BlockingQueue<Block> blocks) throws InterruptedException {
+		Block block = blocks.take();
+		block.size = 0;
+		block.pos = 0;
+		block.last = false;
+		block.error = null;
+		return block;
+	}
+
+	boolean nextEntry() throws IOException {
+		while (_block == null || _block.pos == _block.size) {
+			if (_block != null) {
+				if (_block.last)
+					return false;
+				_freeBlocks.add(_block);
+			}
+			try {
+				_block = _filledBlocks.take();
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException();
+			}
+			if (_block.error != null)
+				throw new IOException("Match finder failed", _block.error);
+		}
+		_numAvailableBytes = _block.values[_block.pos++];
+		_dataPos++;
+		return true;
+	}
+
+	public int GetMatches(int[] distances) throws IOException {
+		if (!nextEntry()) {
+			_dataPos++;
+			_numAvailableBytes--;
+			return 0;
+		}
+		int numDistances = _block.values[_block.pos++];
+		System.arraycopy(_block.values, _block.pos, distances, 0, numDistances);
+		_block.pos += numDistances;
+		return numDistances;
+	}
+
+	public void Skip(int num) throws IOException {
+		do {
+			if (!nextEntry()) {
+				_dataPos++;
+				_numAvailableBytes--;
+				continue;
+			}
+			int numDistances = _block.values[_block.pos++];
+			_block.pos += numDistances;
+		}
+		while (--num != 0);
+	}
+
+	public byte getIndexByte(int index) { return _window[(_dataPos + index) & _windowMask]; }
+
+	public int getMatchLen(int index, int distance, int limit) {
+		int pby = _dataPos + index;
+		// Bytes read by the match finder when it was at this position
+		int end = _dataPos + _numAvailableBytes;
+		if (pby + limit > end)
+			limit = end - pby;
+		distance++;
+
+		int i;
+		for (i = 0; i < limit && _window[(pby + i) & _windowMask] == _window[(pby + i - distance) & _windowMask]; i++);
+		return i;
+	}
+
+	public int getNumAvailableBytes() { return _numAvailableBytes; }
+
+	// Copies the bytes read by the match finder into the window
+	class WindowStream extends InputStream {
+		final InputStream _input;
+		int _position;
+
+		WindowStream(InputStream input) { _input = input; }
+
+		public int read() throws IOException {
+			int value = _input.read();
+			if (value != -1)
+				_window[_position++ & _windowMask] = (byte) value;
+			return value;
+		}
+
+		public int read(byte[] buffer, int offset, int length) throws IOException {
+			int numReadBytes = _input.read(buffer, offset, length);
+			if (numReadBytes <= 0)
+				return numReadBytes;
+
+			int windowPos = _position & _windowMask;
+			int firstPart = Math.min(numReadBytes, _window.length - windowPos);
+			System.arraycopy(buffer, offset, _window, windowPos, firstPart);
+			System.arraycopy(buffer, offset + firstPart, _window, 0, numReadBytes - firstPart);
+			_position += numReadBytes;
+			return numReadBytes;
+		}
+	}
+}
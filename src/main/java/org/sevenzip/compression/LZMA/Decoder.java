@@ -4,6 +4,8 @@ import org.sevenzip.compression.LZ.OutWindow;
 import org.sevenzip.compression.RangeCoder.BitTreeDecoder;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 
 public class Decoder {
 	static class LenDecoder {
@@ -178,7 +180,36 @@ public class Decoder {
 	
 	public boolean code(java.io.InputStream inStream, java.io.OutputStream outStream, long outSize) throws IOException {
 		m_RangeDecoder.setStream(inStream);
+		return code(outStream, outSize);
+	}
+	
+	/**
+	 * Reads the compressed data directly from the buffer, starting from its position.
+	 */
+	public boolean code(ByteBuffer inBuffer, java.io.OutputStream outStream, long outSize) throws IOException {
+		m_RangeDecoder.setBuffer(inBuffer);
+		try {
+			return code(outStream, outSize);
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("Unexpected end of the compressed data", e);
+		}
+	}
+	
+	boolean code(java.io.OutputStream outStream, long outSize) throws IOException {
 		m_OutWindow.setStream(outStream);
+		try {
+			return decode(outSize);
+		}
+		finally {
+			// Data left after a failure is dropped, so a reused decoder doesn't write it into the next stream
+			m_OutWindow.init(false);
+			m_OutWindow.releaseStream();
+			m_RangeDecoder.releaseStream();
+		}
+	}
+	
+	boolean decode(long outSize) throws IOException {
 		init();
 		
 		int state = Base.stateInit();
@@ -266,8 +297,6 @@ public class Decoder {
 			}
 		}
 		m_OutWindow.flush();
-		m_OutWindow.releaseStream();
-		m_RangeDecoder.releaseStream();
 		return true;
 	}
 	
@@ -2,6 +2,7 @@ package org.sevenzip.compression.LZMA;
 
 import org.sevenzip.ICodeProgress;
 import org.sevenzip.compression.LZ.BinTree;
+import org.sevenzip.compression.LZ.PipelinedBinTree;
 import org.sevenzip.compression.RangeCoder.BitTreeEncoder;
 
 import java.io.IOException;
@@ -322,9 +323,11 @@ public class Encoder {
 
 	boolean _needReleaseMFStream = false;
 
+	int _numThreads = 1;
+
 	private void create() {
 		if (_matchFinder == null) {
-			BinTree bt = new BinTree();
+			BinTree bt = (_numThreads > 1) ? new PipelinedBinTree() : new BinTree();
 			int numHashBytes = 4;
 			if (_matchFinderType == EMatchFinderTypeBT2)
 				numHashBytes = 2;
@@ -1211,6 +1214,22 @@ public class Encoder {
 		return true;
 	}
 
+	// The encoder itself is sequential, the only thread it can use besides its own is the match finder.
+	// 1 is single-threaded, anything more runs the match finder on a second thread
+	public static final int kNumThreadsMax = 2;
+
+	public boolean setNumThreads(int numThreads) {
+		if (numThreads < 1)
+			return false;
+		boolean multiThreadPrev = _numThreads > 1;
+		_numThreads = Math.min(numThreads, kNumThreadsMax);
+		if (_matchFinder != null && multiThreadPrev != (_numThreads > 1)) {
+			_dictionarySizePrev = -1;
+			_matchFinder = null;
+		}
+		return true;
+	}
+
 	public boolean setLcLpPb(int lc, int lp, int pb) {
 		if (lp < 0 || lp > Base.kNumLitPosStatesBitsEncodingMax ||
 			lc < 0 || lc > Base.kNumLitContextBitsMax ||
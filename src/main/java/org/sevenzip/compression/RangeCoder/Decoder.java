@@ -1,5 +1,6 @@
 package org.sevenzip.compression.RangeCoder;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 public class Decoder {
@@ -13,20 +14,35 @@ public class Decoder {
 	int Code;
 
 	java.io.InputStream Stream;
+	// Read directly instead of the stream, if set
+	ByteBuffer Buffer;
 	
 	public final void setStream(java.io.InputStream stream) { 
 		Stream = stream; 
+		Buffer = null;
+	}
+	
+	public final void setBuffer(ByteBuffer buffer) {
+		Stream = null;
+		Buffer = buffer;
 	}
 	
 	public final void releaseStream() { 
 		Stream = null; 
+		Buffer = null;
+	}
+	
+	private int readByte() throws IOException {
+		if (Buffer != null)
+			return Buffer.get() & 0xFF;
+		return Stream.read();
 	}
 	
 	public final void init() throws IOException {
 		Code = 0;
 		Range = -1;
 		for (int i = 0; i < 5; i++)
-			Code = (Code << 8) | Stream.read();
+			Code = (Code << 8) | readByte();
 	}
 	
 	public final int decodeDirectBits(int numTotalBits) throws IOException {
@@ -38,7 +54,7 @@ public class Decoder {
 			result = (result << 1) | (1 - t);
 			
 			if ((Range & kTopMask) == 0) {
-				Code = (Code << 8) | Stream.read();
+				Code = (Code << 8) | readByte();
 				Range <<= 8;
 			}
 		}
@@ -52,7 +68,7 @@ public class Decoder {
 			Range = newBound;
 			probs[index] = (short)(prob + ((kBitModelTotal - prob) >>> kNumMoveBits));
 			if ((Range & kTopMask) == 0) {
-				Code = (Code << 8) | Stream.read();
+				Code = (Code << 8) | readByte();
 				Range <<= 8;
 			}
 			return 0;
@@ -62,7 +78,7 @@ public class Decoder {
 			Code -= newBound;
 			probs[index] = (short)(prob - ((prob) >>> kNumMoveBits));
 			if ((Range & kTopMask) == 0) {
-				Code = (Code << 8) | Stream.read();
+				Code = (Code << 8) | readByte();
 				Range <<= 8;
 			}
 			return 1;
@@ -64,11 +64,9 @@ public class KhronosTextureDataLoader {
         ByteBuffer[] levels = new ByteBuffer[mipmapLevels];
         for (int i = 0; i < mipmapLevels; i++) {
             int dataChunkSize = addPadding4(buffer.getInt());
-            byte[] dataChunk = new byte[dataChunkSize];
-            buffer.get(dataChunk);
             ByteBuffer dataBuffer = BufferUtils.allocateDirect(dataChunkSize);
-            dataBuffer.put(dataChunk);
-            dataBuffer.position(0);
+            dataBuffer.put(0, buffer, buffer.position(), dataChunkSize);
+            buffer.position(buffer.position() + dataChunkSize);
             levels[i] = dataBuffer;
         }
 
@@ -0,0 +1,111 @@
+package com.vorono4ka.compression;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compresses and decompresses different data on several threads at once.
+ * Codec contexts are pooled and reused, so a context shared between threads
+ * would mix up the hashes or the compressed data of different files.
+ */
+class CompressorConcurrencyTest {
+    private static final int THREAD_COUNT = 8;
+    private static final int FILES_PER_THREAD = 12;
+    private static final int DATA_SIZE = 48 * 1024;
+
+    private static final CompressionSettings[] SETTINGS = {
+        CompressionSettings.lzma(LzmaProfile.FAST, 1),
+        // A separate match finder thread for every file
+        CompressionSettings.lzma(LzmaProfile.FAST, 2),
+        new CompressionSettings(CompressionSettings.Codec.ZSTD, CompressionSettings.DEFAULT_ZSTD_LEVEL, 1, null),
+    };
+
+    @Test
+    void roundTripsOnSeveralThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                int seed = thread;
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    Random random = new Random(seed);
+                    for (int file = 0; file < FILES_PER_THREAD; file++) {
+                        roundTrip(createData(random), SETTINGS[(seed + file) % SETTINGS.length], file % 2 == 0);
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void roundTrip(byte[] data, CompressionSettings settings, boolean isStreamed) throws Exception {
+        byte[] hash = MessageDigest.getInstance("MD5").digest(data);
+
+        byte[] compressed;
+        if (isStreamed) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (OutputStream stream = Compressor.compress(Channels.newChannel(output), data.length, hash, settings)) {
+                stream.write(data);
+            }
+
+            compressed = output.toByteArray();
+        } else {
+            compressed = Compressor.compress(data, settings);
+        }
+
+        assertArrayEquals(hash, readHash(compressed), "Hash in the file header");
+        assertArrayEquals(data, Decompressor.decompress(compressed));
+
+        ByteBuffer decompressed = Decompressor.decompress(ByteBuffer.wrap(compressed));
+        byte[] decompressedBytes = new byte[decompressed.remaining()];
+        decompressed.get(decompressedBytes);
+        assertArrayEquals(data, decompressedBytes);
+    }
+
+    /**
+     * @return compressible data of the same size with a different content
+     */
+    private static byte[] createData(Random random) {
+        byte[] data = new byte[DATA_SIZE];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = random.nextInt(4) == 0 ? (byte) random.nextInt() : (byte) (i / 64);
+        }
+
+        return data;
+    }
+
+    private static byte[] readHash(byte[] compressed) {
+        ByteBuffer header = ByteBuffer.wrap(compressed);
+        assertEquals(Decompressor.SC_MAGIC, header.getShort());
+
+        int version = header.getInt();
+        if (version == 4) {
+            header.getInt();
+        }
+
+        byte[] hash = new byte[header.getInt()];
+        header.get(hash);
+        return hash;
+    }
+}